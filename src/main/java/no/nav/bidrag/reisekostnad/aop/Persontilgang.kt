@@ -0,0 +1,76 @@
+package no.nav.bidrag.reisekostnad.aop
+
+import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode
+import no.nav.bidrag.reisekostnad.feilhåndtering.Tilgangsfeil
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.BidragPersonkonsument
+import no.nav.bidrag.reisekostnad.konfigurasjon.Applikasjonskonfig.SIKKER_LOGG
+import no.nav.bidrag.reisekostnad.konfigurasjon.Tokeninfo
+import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste
+import org.springframework.context.annotation.Lazy
+import org.springframework.stereotype.Component
+import java.util.function.Supplier
+
+/**
+ * Pålogget person har tilgang til personinfo for seg selv, for personer i forespørsler vedkommende er part i, og for egen familie.
+ * Systembrukere har tilgang til alle, og det samme har oppgaver som eksplisitt kjøres med [somSystem]. Uten pålogget person nektes tilgang.
+ */
+@Component
+class Persontilgang(
+    @Lazy private val bidragPersonkonsument: BidragPersonkonsument,
+    @Lazy private val databasetjeneste: Databasetjeneste
+) {
+
+    fun kontrollere(personident: String) = kontrollere(listOf(personident))
+
+    /**
+     * Kontrollerer tilgang til alle personene samlet, med ett databaseoppslag og høyst ett oppslag av familien til pålogget person.
+     */
+    fun kontrollere(personidenter: Collection<String>) {
+        if (systemkontekst.get() || Tokeninfo.erSystembruker()) return
+        val påloggetPerson = Tokeninfo.hentPaaloggetPerson()
+        if (påloggetPerson == null) {
+            SIKKER_LOGG.warn("Tilgang til personinfo for {} ble nektet fordi ingen person er pålogget", personidenter)
+            throw Tilgangsfeil(Feilkode.TILGANG_PERSON_NEKTET)
+        }
+
+        val andre = personidenter.filter { it != påloggetPerson }.toSet()
+        if (andre.isEmpty()) return
+
+        val tilknyttet = databasetjeneste.henteIdenterTilknyttetForespørselTilPart(påloggetPerson, andre)
+        val gjenstående = andre.filter { it !in tilknyttet }
+        if (gjenstående.isEmpty()) return
+
+        val familie = henteFamilie(påloggetPerson)
+        val nektet = gjenstående.filter { it !in familie }
+        if (nektet.isEmpty()) return
+
+        SIKKER_LOGG.warn("Pålogget person {} ble nektet tilgang til personinfo for {}", påloggetPerson, nektet)
+        throw Tilgangsfeil(Feilkode.TILGANG_PERSON_NEKTET)
+    }
+
+    private fun henteFamilie(påloggetPerson: String): Set<String> {
+        val familie = bidragPersonkonsument.hentFamilie(påloggetPerson).orElse(null) ?: return emptySet()
+        return familie.personensMotpartBarnRelasjon.flatMap { relasjon ->
+            listOfNotNull(relasjon.motpart?.ident) + relasjon.fellesBarn.mapNotNull { it.ident }
+        }.toSet()
+    }
+
+    companion object {
+        private val systemkontekst = ThreadLocal.withInitial { false }
+
+        /**
+         * Kjører oppgaven i kallende tråd uten tilgangskontroll. Brukes av skedulerte jobber, som ikke har pålogget person, og av oppslag der
+         * tilgangen allerede er kontrollert.
+         */
+        @JvmStatic
+        fun <T> somSystem(oppgave: Supplier<T>): T {
+            val forrige = systemkontekst.get()
+            systemkontekst.set(true)
+            try {
+                return oppgave.get()
+            } finally {
+                systemkontekst.set(forrige)
+            }
+        }
+    }
+}
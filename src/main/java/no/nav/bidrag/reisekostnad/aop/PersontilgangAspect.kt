@@ -0,0 +1,30 @@
+package no.nav.bidrag.reisekostnad.aop
+
+import org.aspectj.lang.ProceedingJoinPoint
+import org.aspectj.lang.annotation.Around
+import org.aspectj.lang.annotation.Aspect
+import org.aspectj.lang.annotation.Before
+import org.springframework.core.Ordered
+import org.springframework.core.annotation.Order
+import org.springframework.stereotype.Component
+
+/**
+ * Kontrollerer tilgang før personinfo slås opp i den delte personcachen, som er nøklet kun på personident. Reglene ligger i
+ * [Persontilgang]. Aspektet har høyeste prioritet, slik at det kjøres før cachen. Skedulerte jobber har ingen pålogget person, og kjøres
+ * derfor som system.
+ */
+@Component
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE)
+class PersontilgangAspect(private val persontilgang: Persontilgang) {
+
+    @Before(value = "execution(* no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.BidragPersonkonsument.hentPersoninfo(..)) && args(personident)")
+    fun kontrollereTilgangTilPersoninfo(personident: String) {
+        persontilgang.kontrollere(personident)
+    }
+
+    @Around("@annotation(org.springframework.scheduling.annotation.Scheduled)")
+    fun kjøreSkedulertJobbSomSystem(joinPoint: ProceedingJoinPoint): Any? {
+        return Persontilgang.somSystem { joinPoint.proceed() }
+    }
+}
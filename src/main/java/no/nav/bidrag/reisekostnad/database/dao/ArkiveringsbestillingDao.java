@@ -0,0 +1,36 @@
+package no.nav.bidrag.reisekostnad.database.dao;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import no.nav.bidrag.reisekostnad.database.datamodell.Arkiveringsbestilling;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface ArkiveringsbestillingDao extends CrudRepository<Arkiveringsbestilling, Integer> {
+
+  /**
+   * Låser ledige bestillinger med FOR UPDATE SKIP LOCKED. Bestillinger som er låst av en annen transaksjon hoppes over, slik at flere
+   * instanser kan hente bestillinger samtidig uten å vente på hverandre. Tidsavbrudd -2 tilsvarer LockOptions.SKIP_LOCKED i Hibernate.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("select a from Arkiveringsbestilling a where a.ferdigstilt is null and a.tilgjengeligFra <= :tidspunkt and a.antallForsøk < :maksAntallForsøk "
+      + "order by a.tilgjengeligFra")
+  List<Arkiveringsbestilling> låseLedigeBestillinger(LocalDateTime tidspunkt, int maksAntallForsøk, Pageable pageable);
+
+  @Query("select a from Arkiveringsbestilling a where a.forespørsel.id = :idForespørsel and a.ferdigstilt is null")
+  Optional<Arkiveringsbestilling> henteAktivBestilling(int idForespørsel);
+
+  @Modifying
+  @Query("update Arkiveringsbestilling a set a.ferdigstilt = :ferdigstilt where a.forespørsel.id = :idForespørsel and a.ferdigstilt is null")
+  int ferdigstilleBestillinger(int idForespørsel, LocalDateTime ferdigstilt);
+}
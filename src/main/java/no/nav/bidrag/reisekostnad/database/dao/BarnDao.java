@@ -1,18 +1,20 @@
 package no.nav.bidrag.reisekostnad.database.dao;
 
 import no.nav.bidrag.reisekostnad.database.datamodell.Barn;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.Optional;
-import java.util.Set;
 
 public interface BarnDao extends CrudRepository<Barn, Integer> {
 
   @Query("select b from Barn b where b.personident = :personidentBarn and b.forespørsel.deaktivert is null")
   Optional<Barn> henteBarnTilknyttetAktivForespørsel(String personidentBarn);
 
-  @Query("select b from Barn b where b.personident is not null and b.forespørsel.deaktivert < :forespørselDeaktivertFør")
-  Set<Barn> henteBarnUtenTilknytningTilAktivForespørsel(LocalDateTime forespørselDeaktivertFør);
+  @Modifying
+  @Query("update Barn b set b.personident = null, b.anonymisert = :anonymisert where b.forespørsel.id in :idForespørsler and b.personident is not null")
+  int anonymisereBarn(Collection<Integer> idForespørsler, LocalDateTime anonymisert);
 }
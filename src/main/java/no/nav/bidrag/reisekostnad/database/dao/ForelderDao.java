@@ -1,11 +1,13 @@
 package no.nav.bidrag.reisekostnad.database.dao;
 
-import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forelder;
-import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 
@@ -18,21 +20,20 @@ public interface ForelderDao extends CrudRepository<Forelder, Integer> {
   @Query("select f from Forelder  f where f.personident is not null and f.personident = :personident")
   Optional<Forelder> finnMedPersonident(String personident);
 
-  default Set<Forelder> henteForeldreUtenTilknytningTilAktiveForespørsler(LocalDate forespørslerDeaktivertFør) {
-    var alleForeldre = findAll();
-
-    var sletteklareForeldre = alleForeldre.stream()
-        .filter(f -> erAnonymiseringsklar(f.getForespørslerHovdedpart(), forespørslerDeaktivertFør))
-        .filter(f -> erAnonymiseringsklar(f.getForespørslerMotpart(), forespørslerDeaktivertFør))
-        .collect(Collectors.toSet());
-
-    return sletteklareForeldre;
-  }
-
-  default boolean erAnonymiseringsklar(Set<Forespørsel> forespørsler, LocalDate deaktivertFør) {
-    return forespørsler == null
-        || forespørsler.size() < 1
-        || forespørsler.stream()
-        .filter(f -> f.getDeaktivert() == null || deaktivertFør.atStartOfDay().isBefore(f.getDeaktivert())).findFirst().isEmpty();
-  }
+  /**
+   * Henter id til foreldre som verken er part i en aktiv forespørsel, part i en forespørsel deaktivert etter angitt tidspunkt, eller mottaker av
+   * en aktiv brukernotifikasjonsoppgave. Resultatet begrenses til partisjonen og sorteres på id, og kan blas gjennom ved å sende inn siste id
+   * fra forrige side.
+   */
+  @Query("select f.id from Forelder f where f.id > :etterId and mod(f.id, :antallPartisjoner) = :partisjon "
+      + "and not exists (select fs.id from Forespørsel fs where (fs.hovedpart = f or fs.motpart = f) "
+      + "and (fs.deaktivert is null or fs.deaktivert > :deaktivertFør)) "
+      + "and not exists (select o.id from Oppgavebestilling o where o.forelder = f and o.ferdigstilt is null) "
+      + "order by f.id")
+  List<Integer> henteIdTilForeldreUtenTilknytningTilAktiveForespørsler(LocalDateTime deaktivertFør, int etterId, int partisjon, int antallPartisjoner,
+      Pageable side);
+
+  @Modifying
+  @Query("delete from Forelder f where f.id in :idForeldre")
+  int sletteForeldre(Collection<Integer> idForeldre);
 }
@@ -2,11 +2,15 @@ package no.nav.bidrag.reisekostnad.database.dao;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel;
+import no.nav.bidrag.reisekostnad.database.lesemodell.Forespørselsrad;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
@@ -19,14 +23,41 @@ public interface ForespørselDao extends JpaRepository<Forespørsel, Integer> {
   @Query("select f from Forespørsel f where f.motpart.personident = :personidentMotpart and f.anonymisert is null")
   Set<Forespørsel> henteForespørslerForMotpart(String personidentMotpart);
 
+  /**
+   * Leser forespørslene der personen er hovedpart eller motpart, med ett barn per rad. Forespørsler som er både journalført og deaktivert er
+   * ikke synlige.
+   */
+  @Query("select new no.nav.bidrag.reisekostnad.database.lesemodell.Forespørselsrad(f.id, f.kreverSamtykke, f.opprettet, f.samtykket, "
+      + "f.samtykkefrist, f.journalført, f.deaktivert, f.deaktivertAv, h.personident, m.personident, b.personident) "
+      + "from Forespørsel f left join f.hovedpart h left join f.motpart m left join f.barn b "
+      + "where (h.personident = :personident or m.personident = :personident) and f.anonymisert is null "
+      + "and ((f.journalført is null and (f.deaktivert is null or f.deaktivert > :deaktivertEtter)) "
+      + "or not (f.journalført is not null and f.deaktivert is not null))")
+  List<Forespørselsrad> henteSynligeForespørselsraderForPart(String personident, LocalDateTime deaktivertEtter);
+
+  @Query("select h.personident from Forespørsel f join f.hovedpart h join f.motpart m "
+      + "where (h.personident = :personidentPart or m.personident = :personidentPart) and h.personident in :personidenter "
+      + "union select m.personident from Forespørsel f join f.hovedpart h join f.motpart m "
+      + "where (h.personident = :personidentPart or m.personident = :personidentPart) and m.personident in :personidenter "
+      + "union select b.personident from Forespørsel f join f.hovedpart h join f.motpart m join f.barn b "
+      + "where (h.personident = :personidentPart or m.personident = :personidentPart) and b.personident in :personidenter")
+  Set<String> henteIdenterTilknyttetForespørselTilPart(String personidentPart, Collection<String> personidenter);
+
   @Query("select f from Forespørsel f where f.id = :idForespørsel and f.deaktivert is null")
   Optional<Forespørsel> henteAktivForespørsel(int idForespørsel);
 
-  @Query("select f.id from Forespørsel f where f.deaktivert is null and f.opprettet < :opprettetFør")
-  Set<Integer> henteIdTilAktiveForespørsler(LocalDateTime opprettetFør);
+  @Query("select f from Forespørsel f where f.id > :etterId and f.deaktivert is null and f.opprettet > :opprettetEtter order by f.id")
+  List<Forespørsel> henteAktiveForespørslerOpprettetEtter(LocalDateTime opprettetEtter, int etterId, Pageable side);
 
-  @Query("select f.id from Forespørsel f where f.deaktivert is null and f.journalført is not null and f.opprettet < :opprettetFør")
-  Set<Integer> henteIdTilAktiveJournalførteForespørsler(LocalDateTime opprettetFør);
+  @Query("select f from Forespørsel f where f.id > :etterId and mod(f.id, :antallPartisjoner) = :partisjon "
+      + "and f.deaktivert is null and f.opprettet < :opprettetFør order by f.id")
+  List<Forespørsel> henteAktiveForespørslerOpprettetFør(LocalDateTime opprettetFør, int etterId, int partisjon, int antallPartisjoner,
+      Pageable side);
+
+  @Query("select f.id from Forespørsel f where f.id > :etterId and mod(f.id, :antallPartisjoner) = :partisjon "
+      + "and f.deaktivert is null and f.journalført is not null and f.opprettet < :opprettetFør order by f.id")
+  List<Integer> henteIdTilAktiveJournalførteForespørsler(LocalDateTime opprettetFør, int etterId, int partisjon, int antallPartisjoner,
+      Pageable side);
 
   @Query("select f.id from Forespørsel f "
       + "where f.deaktivert is null and f.samtykket is not null and f.journalført is null")
@@ -36,26 +67,25 @@ public interface ForespørselDao extends JpaRepository<Forespørsel, Integer> {
       + "where f.deaktivert is null and f.samtykket is null and f.journalført is null and f.kreverSamtykke = false")
   Set<Integer> henteAktiveForespørslerSomIkkeKreverSamtykkOgErKlareForInnsending();
 
-  @Query("select f from Forespørsel f inner join f.barn b "
-      + "where f.deaktivert is null and f.kreverSamtykke = true and f.samtykket is null and b.fødselsdato <= :date")
-  Set<Forespørsel> henteForespørslerSomKreverSamtykkeOgInneholderBarnFødtSammeDagEllerEtterDato(LocalDate date);
-
-  default Set<Forespørsel> henteSynligeForespørslerForHovedpart(String personident, LocalDateTime deaktivertEtter) {
-    return henteForespørslerForHovedpart(personident).stream()
-        .filter(f -> erSynlig(f, deaktivertEtter)).collect(Collectors.toSet());
-  }
+  @Query("select distinct f from Forespørsel f inner join f.barn b where f.id > :etterId and mod(f.id, :antallPartisjoner) = :partisjon "
+      + "and f.deaktivert is null and f.kreverSamtykke = true and f.samtykket is null and b.fødselsdato <= :date order by f.id")
+  List<Forespørsel> henteForespørslerSomKreverSamtykkeOgInneholderBarnFødtSammeDagEllerEtterDato(LocalDate date, int etterId, int partisjon,
+      int antallPartisjoner, Pageable side);
 
-  default Set<Forespørsel> henteSynligeForespørslerForMotpart(String personident, LocalDateTime deaktivertEtter) {
-    return henteForespørslerForMotpart(personident).stream()
-        .filter(f -> erSynlig(f, deaktivertEtter)).collect(Collectors.toSet());
-  }
+  @Query("select f.id from Forespørsel f where f.id > :etterId and mod(f.id, :antallPartisjoner) = :partisjon and f.deaktivert < :deaktivertFør "
+      + "and exists (select b.id from Barn b where b.forespørsel = f and b.personident is not null) order by f.id")
+  List<Integer> henteIdTilForespørslerMedBarnSomSkalAnonymiseres(LocalDateTime deaktivertFør, int etterId, int partisjon, int antallPartisjoner,
+      Pageable side);
 
-  default boolean erSynlig(Forespørsel forespørsel, LocalDateTime deaktivertEtter) {
+  @Modifying
+  @Query("update Forespørsel f set f.anonymisert = :anonymisert where f.id in :idForespørsler")
+  int setteAnonymisert(Collection<Integer> idForespørsler, LocalDateTime anonymisert);
 
-    var journalført = forespørsel.getJournalført();
-    var deaktivert = forespørsel.getDeaktivert();
+  @Modifying
+  @Query("update Forespørsel f set f.hovedpart = null, f.anonymisert = :anonymisert where f.hovedpart.id in :idForeldre")
+  int fjerneHovedparter(Collection<Integer> idForeldre, LocalDateTime anonymisert);
 
-    return (journalført == null && (deaktivert == null || deaktivert.isAfter(deaktivertEtter))
-        || !(journalført != null && deaktivert != null));
-  }
+  @Modifying
+  @Query("update Forespørsel f set f.motpart = null, f.anonymisert = :anonymisert where f.motpart.id in :idForeldre")
+  int fjerneMotparter(Collection<Integer> idForeldre, LocalDateTime anonymisert);
 }
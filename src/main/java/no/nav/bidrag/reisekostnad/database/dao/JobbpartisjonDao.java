@@ -0,0 +1,47 @@
+package no.nav.bidrag.reisekostnad.database.dao;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import no.nav.bidrag.reisekostnad.database.datamodell.Jobbpartisjon;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobbpartisjonDao extends CrudRepository<Jobbpartisjon, Jobbpartisjon.Nøkkel> {
+
+  /**
+   * Låser alle partisjonene til jobben, slik at bare én instans om gangen kan opprette partisjoner eller starte en ny runde.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select p from Jobbpartisjon p where p.jobb = :jobb order by p.partisjon")
+  List<Jobbpartisjon> låsePartisjoner(String jobb);
+
+  /**
+   * Låser partisjoner som ikke er fullført i gjeldende runde, og som ikke er leid av en annen instans, med FOR UPDATE SKIP LOCKED.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("select p from Jobbpartisjon p where p.jobb = :jobb and p.fullført is null and (p.leidTil is null or p.leidTil < :tidspunkt) "
+      + "order by p.partisjon")
+  List<Jobbpartisjon> låseLedigePartisjoner(String jobb, LocalDateTime tidspunkt, Pageable pageable);
+
+  @Modifying
+  @Query("update Jobbpartisjon p set p.sisteId = :sisteId, p.leidTil = :leidTil where p.jobb = :jobb and p.partisjon = :partisjon and p.eier = :eier")
+  int fornyeLeie(String jobb, int partisjon, String eier, int sisteId, LocalDateTime leidTil);
+
+  @Modifying
+  @Query("update Jobbpartisjon p set p.sisteId = 0, p.eier = null, p.leidTil = null, p.fullført = :fullført "
+      + "where p.jobb = :jobb and p.partisjon = :partisjon and p.eier = :eier")
+  int fullføre(String jobb, int partisjon, String eier, LocalDateTime fullført);
+
+  @Modifying
+  @Query("update Jobbpartisjon p set p.eier = null, p.leidTil = null where p.jobb = :jobb and p.partisjon = :partisjon and p.eier = :eier")
+  int frigi(String jobb, int partisjon, String eier);
+}
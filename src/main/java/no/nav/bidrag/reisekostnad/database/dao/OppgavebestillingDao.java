@@ -1,8 +1,12 @@
 package no.nav.bidrag.reisekostnad.database.dao;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import no.nav.bidrag.reisekostnad.database.datamodell.Oppgavebestilling;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
@@ -13,12 +17,14 @@ public interface OppgavebestillingDao extends CrudRepository<Oppgavebestilling,
   @Query("select o from Oppgavebestilling o where o.forespørsel.id = :idForespørsel and o.forelder.personident = :personident and o.eventId is not null and o.ferdigstilt is null")
   Set<Oppgavebestilling> henteAktiveOppgaver(int idForespørsel, String personident);
 
-  @Query("select o from Oppgavebestilling o where o.ferdigstilt is null and o.forelder.personident = :personident")
-  Set<Oppgavebestilling> henteAktiveOppgaver(String personident);
+  @Modifying
+  @Query("update Oppgavebestilling o set o.forelder = null where o.forelder.id in :idForeldre and o.ferdigstilt is not null")
+  int fjerneForeldre(Collection<Integer> idForeldre);
 
   @Query("select o from Oppgavebestilling o where o.eventId = :eventId")
   Optional<Oppgavebestilling> henteOppgavebestilling(String eventId);
 
-  @Query("select o from Oppgavebestilling o where o.ferdigstilt is null and o.forespørsel.deaktivert is not null")
-  Set<Oppgavebestilling> henteAktiveOppgaverKnyttetTilDeaktiverteForespørsler();
+  @Query("select o from Oppgavebestilling o where o.id > :etterId and mod(o.id, :antallPartisjoner) = :partisjon "
+      + "and o.ferdigstilt is null and o.forespørsel.deaktivert is not null order by o.id")
+  List<Oppgavebestilling> henteAktiveOppgaverKnyttetTilDeaktiverteForespørsler(int etterId, int partisjon, int antallPartisjoner, Pageable side);
 }
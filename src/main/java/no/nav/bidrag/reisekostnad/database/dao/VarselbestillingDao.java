@@ -0,0 +1,32 @@
+package no.nav.bidrag.reisekostnad.database.dao;
+
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varselbestilling;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface VarselbestillingDao extends CrudRepository<Varselbestilling, Integer> {
+
+  /**
+   * Låser ledige bestillinger med FOR UPDATE SKIP LOCKED, på samme måte som for arkiveringsbestillinger.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+  @Query("select v from Varselbestilling v where v.sendt is null and v.tilgjengeligFra <= :tidspunkt and v.antallForsøk < :maksAntallForsøk "
+      + "order by v.id")
+  List<Varselbestilling> låseLedigeBestillinger(LocalDateTime tidspunkt, int maksAntallForsøk, Pageable pageable);
+
+  @Modifying
+  @Query("update Varselbestilling v set v.sendt = :sendt, v.personident = null, v.tekst = null where v.id in :ider")
+  int registrereSendt(Collection<Integer> ider, LocalDateTime sendt);
+}
@@ -0,0 +1,47 @@
+package no.nav.bidrag.reisekostnad.database.datamodell;
+
+import java.time.LocalDateTime;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.ManyToOne;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+
+/**
+ * Bestilling av arkivering av en forespørsel. Opprettes i samme transaksjon som endringen som gjør forespørselen klar for innsending, og
+ * ferdigstilles i samme transaksjon som journalposten registreres på forespørselen.
+ */
+@Entity
+@Builder
+@Getter
+@Setter
+@DynamicUpdate
+@NoArgsConstructor
+@AllArgsConstructor
+public class Arkiveringsbestilling {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private int id;
+
+  @ManyToOne
+  private Forespørsel forespørsel;
+
+  private LocalDateTime opprettet;
+
+  /**
+   * Bestillingen kan ikke reserveres før dette tidspunktet. Settes frem i tid når bestillingen reserveres, slik at bestillinger som ikke
+   * blir ferdigstilt, for eksempel ved feil eller omstart, blir tilgjengelige igjen.
+   */
+  private LocalDateTime tilgjengeligFra;
+
+  private int antallForsøk;
+
+  private LocalDateTime ferdigstilt;
+}
@@ -0,0 +1,60 @@
+package no.nav.bidrag.reisekostnad.database.datamodell;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * En partisjon av arbeidsmengden til en skedulert jobb. Partisjonen består av elementene der id modulo antall partisjoner er lik
+ * partisjonsnummeret. Instansen som kjører jobben leier partisjonen, og fornyer leien for hver behandlede side. Leien utløper dersom instansen
+ * stopper, og partisjonen kan da tas over av en annen instans, som fortsetter etter siste id.
+ */
+@Entity
+@Builder
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@IdClass(Jobbpartisjon.Nøkkel.class)
+public class Jobbpartisjon {
+
+  @Id
+  private String jobb;
+
+  @Id
+  private int partisjon;
+
+  private int sisteId;
+
+  private String eier;
+
+  private LocalDateTime leidTil;
+
+  /**
+   * Settes når partisjonen er ferdig behandlet i gjeldende runde. Nullstilles for alle partisjonene når en ny runde starter.
+   */
+  private LocalDateTime fullført;
+
+  /**
+   * Planlagt tidspunkt for kjøringen som startet gjeldende runde. En ny runde startes bare av en senere planlagt kjøring.
+   */
+  private LocalDateTime rundeStartet;
+
+  @Getter
+  @EqualsAndHashCode
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Nøkkel implements Serializable {
+
+    private String jobb;
+    private int partisjon;
+  }
+}
@@ -0,0 +1,61 @@
+package no.nav.bidrag.reisekostnad.database.datamodell;
+
+import java.time.LocalDateTime;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+
+/**
+ * Brukernotifikasjon som venter på å bli sendt til Kafka. Personident og tekst fjernes når varselet er sendt. EventId er unik per type, siden
+ * ferdigmeldingen for en oppgave bruker samme eventId som oppgaven.
+ */
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_varselbestilling_type_event_id", columnNames = {"type", "event_id"}))
+@Builder
+@Getter
+@Setter
+@DynamicUpdate
+@NoArgsConstructor
+@AllArgsConstructor
+public class Varselbestilling {
+
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private int id;
+
+  @Enumerated(EnumType.STRING)
+  private Varseltype type;
+
+  private String eventId;
+
+  private String personident;
+
+  private String tekst;
+
+  private String lenke;
+
+  private boolean eksternVarsling;
+
+  private int sikkerhetsnivå;
+
+  private LocalDateTime synligFremTil;
+
+  private LocalDateTime opprettet;
+
+  private LocalDateTime tilgjengeligFra;
+
+  private int antallForsøk;
+
+  private LocalDateTime sendt;
+}
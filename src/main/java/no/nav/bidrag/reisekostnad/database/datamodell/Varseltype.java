@@ -0,0 +1,5 @@
+package no.nav.bidrag.reisekostnad.database.datamodell;
+
+public enum Varseltype {
+  BESKJED, OPPGAVE, FERDIG
+}
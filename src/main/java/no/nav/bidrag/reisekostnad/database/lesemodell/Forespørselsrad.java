@@ -0,0 +1,23 @@
+package no.nav.bidrag.reisekostnad.database.lesemodell;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import no.nav.bidrag.reisekostnad.database.datamodell.Deaktivator;
+
+/**
+ * Én rad per barn i en forespørsel, med kolonnene som trengs for å vise forespørselen til en av partene. Leses med en konstruktøruttrykk-spørring,
+ * og er derfor ikke en del av persistenskonteksten. Forespørsler uten barn gir én rad der personidentBarn er null.
+ */
+public record Forespørselsrad(
+    int id,
+    boolean kreverSamtykke,
+    LocalDateTime opprettet,
+    LocalDateTime samtykket,
+    LocalDate samtykkefrist,
+    LocalDateTime journalført,
+    LocalDateTime deaktivert,
+    Deaktivator deaktivertAv,
+    String personidentHovedpart,
+    String personidentMotpart,
+    String personidentBarn) {
+}
@@ -16,10 +16,12 @@ public enum Feilkode {
   VALIDERING_PÅLOGGET_PERSON_DISKRESJON("Pålogget person har diskresjon. Kan ikke benytte løsningen."),
   VALIDERING_SAMTYKKE_MOTPART("Fant ingen aktive forespørsler knyttet til oppgitt motpart. Samtykke ikke oppdatert."),
   PDF_OPPRETTELSE_FEILET("Opprettelse av PDF feilet."),
+  PDF_OPPRETTELSE_KØ_FULL("Opprettelse av PDF avvist. Køen for PDF-generering er full."),
   PDL_PERSON_DØD("Pålogget person er død."),
   PDL_PERSON_IKKE_FUNNET("Fant ikke person i PDL"),
   PDL_FEIL("En feil oppstod ved henting av data fra PDL"),
   RESSURS_IKKE_FUNNET("Fant ikke ønsket ressurs"),
+  TILGANG_PERSON_NEKTET("Pålogget person har ikke tilgang til opplysninger om oppgitt person"),
   VALIDERING_NY_FOREPØRSEL("Feil ved validering av ny forespørsel"),
   VALIDERING_NY_FOREPØRSEL_INGEN_FAMILIERELASJONER("Feil ved validering av ny forespørsel. Fant ingen familierelasjoner for person."),
   VALIDERING_NY_FOREPØRSEL_MANGLER_RELASJON_MOTPART("Person mangler relasjon til oppgitt motpart"),
@@ -0,0 +1,12 @@
+package no.nav.bidrag.reisekostnad.feilhåndtering;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.FORBIDDEN)
+public class Tilgangsfeil extends ReisekostnadApiFeil {
+
+  public Tilgangsfeil(Feilkode feilkode) {
+    super(feilkode, HttpStatus.FORBIDDEN);
+  }
+}
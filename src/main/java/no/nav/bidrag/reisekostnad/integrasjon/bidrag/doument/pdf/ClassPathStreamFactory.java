@@ -1,8 +1,13 @@
 package no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf;
 
 import com.openhtmltopdf.extend.FSStream;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 
 public class ClassPathStreamFactory implements com.openhtmltopdf.extend.FSStreamFactory {
 
@@ -10,10 +15,26 @@ public class ClassPathStreamFactory implements com.openhtmltopdf.extend.FSStream
   public FSStream getUrl(String uri) {
     try {
       final URI fullUri = new URI(uri);
-      return new ClassPathStream(fullUri.getPath());
+      var innhold = PdfRessursregister.hente(fullUri.getPath());
+      return innhold != null ? new MinnebasertStream(innhold) : new ClassPathStream(fullUri.getPath());
     } catch (URISyntaxException ex) {
       throw new RuntimeException(ex);
     }
   }
 
+  /**
+   * Leverer ressurser som allerede er lastet i {@link PdfRessursregister}.
+   */
+  private record MinnebasertStream(byte[] innhold) implements FSStream {
+
+    @Override
+    public InputStream getStream() {
+      return new ByteArrayInputStream(innhold);
+    }
+
+    @Override
+    public Reader getReader() {
+      return new InputStreamReader(getStream(), StandardCharsets.UTF_8);
+    }
+  }
 }
@@ -4,11 +4,7 @@ import com.openhtmltopdf.pdfboxout.PdfRendererBuilder;
 import com.openhtmltopdf.pdfboxout.PdfRendererBuilder.PdfAConformance;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStream;
-import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
@@ -21,11 +17,8 @@ import no.nav.bidrag.reisekostnad.api.dto.ut.PersonDto;
 import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
 import no.nav.bidrag.reisekostnad.feilhåndtering.InternFeil;
 import no.nav.bidrag.reisekostnad.tjeneste.støtte.Krypteringsverktøy;
-import org.apache.commons.compress.utils.IOUtils;
-import org.jsoup.Jsoup;
 import org.jsoup.helper.W3CDom;
 import org.jsoup.nodes.Element;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Component;
 import org.w3c.dom.Document;
 
@@ -33,7 +26,6 @@ import org.w3c.dom.Document;
 @Slf4j
 public class PdfGenerator {
 
-  private static final String STI_TIL_PDF_TEMPLATE = "/pdf-template/";
   private static final Map<Elementnavn, String> elementnavnTilEngelsk = Map.ofEntries(
       new AbstractMap.SimpleEntry<>(Elementnavn.BARN, "child"),
       new AbstractMap.SimpleEntry<>(Elementnavn.BESKRIVELSE, "description"),
@@ -67,41 +59,28 @@ public class PdfGenerator {
       Tekst.FORNAVN, "Name"
   );
 
+  public PdfGenerator() {
+    log.info("PDF-maler er lastet for skriftspråk {}", Pdfmaler.tilgjengeligeSkriftspråk());
+  }
+
   public static byte[] genererePdf(Set<PersonDto> barn, PersonDto hovedperson, PersonDto motpart, LocalDateTime samtykketidspunkt) {
 
     var skriftspråk = Skriftspråk.BOKMÅL;
 
     log.info("Oppretter dokument for reisekostnad på språk {}", skriftspråk);
 
-    var html = byggeHtmlstrengFraMal(STI_TIL_PDF_TEMPLATE, skriftspråk, barn, hovedperson, motpart, samtykketidspunkt);
+    var doc = byggeDokument(skriftspråk, barn, hovedperson, motpart, samtykketidspunkt);
     try (final ByteArrayOutputStream pdfStream = new ByteArrayOutputStream()) {
 
-      var htmlSomStrøm = new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8));
-      org.jsoup.nodes.Document jsoupDoc = Jsoup.parse(htmlSomStrøm, "UTF-8", "pdf-template/template.html");
-      Document doc = new W3CDom().fromJsoup(jsoupDoc);
       var builder = new PdfRendererBuilder();
 
-      try (InputStream colorProfile = PdfGenerator.class.getResourceAsStream("/pdf-template/ISOcoated_v2_300_bas.ICC")) {
-        byte[] colorProfileBytes = IOUtils.toByteArray(colorProfile);
-        builder.useColorProfile(colorProfileBytes);
-      }
-
-      try (InputStream fontStream = PdfGenerator.class.getResourceAsStream("/pdf-template/Arial.ttf")) {
-        final File midlertidigFil = File.createTempFile("Arial", "ttf");
-        midlertidigFil.deleteOnExit();
-        try (FileOutputStream ut = new FileOutputStream(midlertidigFil)) {
-          IOUtils.copy(fontStream, ut);
-        }
-        builder.useFont(midlertidigFil, "ArialNormal");
-      }
-
       try {
-        InputStream colorProfile = PdfGenerator.class.getResourceAsStream("/pdf-template/sRGB.icc");
         builder.useProtocolsStreamImplementation(new ClassPathStreamFactory(), "classpath")
+            .useFont(() -> new ByteArrayInputStream(PdfRessursregister.henteArial()), "ArialNormal")
             .useFastMode()
             .usePdfAConformance(PdfAConformance.PDFA_2_A)
             .withW3cDocument(doc, "classpath:/pdf-template/")
-            .useColorProfile(colorProfile.readAllBytes())
+            .useColorProfile(PdfRessursregister.henteFargeprofil())
             .toStream(pdfStream)
             .run();
 
@@ -179,33 +158,27 @@ public class PdfGenerator {
     foedselsnummer.first().text(tekstvelger(Tekst.PERSONIDENT, skriftspraak) + ": " + dekryptere(forelder.getIdent()));
   }
 
-  private static String byggeHtmlstrengFraMal(String pdfmal, Skriftspråk skriftspråk, Set<PersonDto> barn, PersonDto hovedperson, PersonDto motpart,
+  /**
+   * Fyller en kopi av den ferdig parsede malen med data, og konverterer den direkte til et W3C-dokument for PDF-rendreren.
+   */
+  static Document byggeDokument(Skriftspråk skriftspråk, Set<PersonDto> barn, PersonDto hovedperson, PersonDto motpart,
       LocalDateTime samtykketidspunkt) {
-    try {
-      var input = new ClassPathResource(pdfmal + skriftspråk.toString().toLowerCase() + ".html").getInputStream();
-      var document = Jsoup.parse(input, "UTF-8", "");
-
-      // Legge til informasjon om barn
-      leggeTilDataBarn(document.getElementById(henteElementnavn(Elementnavn.BARN, skriftspråk)), barn, skriftspråk);
-      // Legge til informasjon om hovedpart
-      leggeTilDataForelder(document.getElementById(henteElementnavn(Elementnavn.HOVEDPART, skriftspråk)), hovedperson, skriftspråk);
-      // Legge til informasjon om motpart
-      var motpartElement = document.getElementById(henteElementnavn(Elementnavn.MOTPART, skriftspråk));
-      leggeTilDataForelder(motpartElement, motpart, skriftspråk);
-      leggTilSamtykketInfo(motpartElement, skriftspråk, samtykketidspunkt);
-
-      var datoElement = document.getElementById(henteElementnavn(Elementnavn.DATO_OPPRETTET, skriftspråk));
-      datoElement.text(String.format("Dato: %s", LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy"))));
-
-      // jsoup fjerner tagslutt for <link> og <meta> - legger på manuelt ettersom dette er påkrevd av PDFBOX
-      var html = document.html().replaceFirst("charset=utf-8\">", "charset=utf-8\"/>");
-      html = html.replaceFirst("href=\"style.css\">", "href=\"style.css\"/>");
-
-      return html;
-
-    } catch (IOException ioe) {
-      throw new InternFeil(Feilkode.PDF_OPPRETTELSE_FEILET, ioe);
-    }
+    var document = Pdfmaler.henteKopi(skriftspråk);
+
+    // Legge til informasjon om barn
+    leggeTilDataBarn(document.getElementById(henteElementnavn(Elementnavn.BARN, skriftspråk)), barn, skriftspråk);
+    // Legge til informasjon om hovedpart
+    leggeTilDataForelder(document.getElementById(henteElementnavn(Elementnavn.HOVEDPART, skriftspråk)), hovedperson, skriftspråk);
+    // Legge til informasjon om motpart
+    var motpartElement = document.getElementById(henteElementnavn(Elementnavn.MOTPART, skriftspråk));
+    leggeTilDataForelder(motpartElement, motpart, skriftspråk);
+    leggTilSamtykketInfo(motpartElement, skriftspråk, samtykketidspunkt);
+
+    var datoElement = document.getElementById(henteElementnavn(Elementnavn.DATO_OPPRETTET, skriftspråk));
+    datoElement.text(String.format("Dato: %s", LocalDateTime.now().format(DateTimeFormatter.ofPattern("dd.MM.yyyy"))));
+
+    // Konverteres direkte fra jsoup-DOM, slik at tagslutt for <link> og <meta> ikke må legges på manuelt
+    return new W3CDom().fromJsoup(document);
   }
 
   private static String henteElementnavn(Elementnavn element, Skriftspråk skriftspraak) {
@@ -0,0 +1,115 @@
+package no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import lombok.extern.slf4j.Slf4j;
+import no.nav.bidrag.reisekostnad.api.dto.ut.PersonDto;
+import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
+import no.nav.bidrag.reisekostnad.feilhåndtering.InternFeil;
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper;
+import org.springframework.stereotype.Component;
+
+/**
+ * Kjører PDF-generering på en egen trådpool med like mange tråder som kjerner og en begrenset kø. Når køen er full avvises nye bestillinger
+ * umiddelbart med {@link Feilkode#PDF_OPPRETTELSE_KØ_FULL}, i stedet for at kallende tråd (f.eks. en Tomcat-tråd) gjør jobben selv. Avviste
+ * forespørsler arkiveres av den skedulerte arkiveringsjobben.
+ */
+@Slf4j
+@Component
+public class PdfGenereringskø {
+
+  private final ThreadPoolExecutor utfører;
+  private final Duration tidsavbrudd;
+  private final Timer ventetid;
+  private final Timer genereringstid;
+  private final Counter avvist;
+
+  public PdfGenereringskø(Egenskaper egenskaper, MeterRegistry meterRegistry) {
+    var konfig = egenskaper.getPdfgenerering();
+    var antallTråder = konfig.getAntallTraader() > 0 ? konfig.getAntallTraader() : Runtime.getRuntime().availableProcessors();
+    var trådnummer = new AtomicInteger();
+
+    this.utfører = new ThreadPoolExecutor(antallTråder, antallTråder, 0L, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(konfig.getKoekapasitet()),
+        r -> new Thread(r, "pdf-generering-" + trådnummer.incrementAndGet()),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.tidsavbrudd = konfig.getTidsavbrudd();
+
+    Gauge.builder("reisekostnad_pdf_ko_lengde", utfører, u -> u.getQueue().size())
+        .description("Antall PDFer som venter på å bli generert")
+        .register(meterRegistry);
+    this.ventetid = Timer.builder("reisekostnad_pdf_ventetid")
+        .description("Tid en PDF-bestilling venter i kø før generering starter")
+        .register(meterRegistry);
+    this.genereringstid = Timer.builder("reisekostnad_pdf_genereringstid")
+        .description("Tid brukt på å generere en PDF")
+        .register(meterRegistry);
+    this.avvist = Counter.builder("reisekostnad_pdf_avvist")
+        .description("Teller antall PDF-bestillinger som er avvist fordi køen var full")
+        .register(meterRegistry);
+
+    log.info("Startet PDF-generering med {} tråder og kø med plass til {} bestillinger", antallTråder, konfig.getKoekapasitet());
+  }
+
+  public byte[] genererePdf(Set<PersonDto> barn, PersonDto hovedperson, PersonDto motpart, LocalDateTime samtykketidspunkt) {
+    return generere(() -> PdfGenerator.genererePdf(barn, hovedperson, motpart, samtykketidspunkt));
+  }
+
+  /**
+   * Legger genereringen i kø og venter på resultatet i inntil tidsavbruddet. Kalleren skal ikke holde en transaksjon åpen mens den venter.
+   */
+  byte[] generere(Callable<byte[]> generering) {
+    var innsendt = System.nanoTime();
+    var resultat = leggeIKø(() -> {
+      ventetid.record(System.nanoTime() - innsendt, TimeUnit.NANOSECONDS);
+      return genereringstid.recordCallable(generering);
+    });
+
+    try {
+      return resultat.get(tidsavbrudd.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      resultat.cancel(true);
+      throw new InternFeil(Feilkode.PDF_OPPRETTELSE_FEILET, e);
+    } catch (TimeoutException e) {
+      log.warn("PDF ble ikke generert innen {}", tidsavbrudd);
+      resultat.cancel(true);
+      throw new InternFeil(Feilkode.PDF_OPPRETTELSE_FEILET, e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtimeException) {
+        throw runtimeException;
+      }
+      throw new InternFeil(Feilkode.PDF_OPPRETTELSE_FEILET, e);
+    }
+  }
+
+  private Future<byte[]> leggeIKø(Callable<byte[]> oppgave) {
+    try {
+      return utfører.submit(oppgave);
+    } catch (RejectedExecutionException e) {
+      avvist.increment();
+      log.warn("Køen for PDF-generering er full ({} ventende). Bestillingen avvises.", utfører.getQueue().size());
+      throw new InternFeil(Feilkode.PDF_OPPRETTELSE_KØ_FULL);
+    }
+  }
+
+  @PreDestroy
+  public void stoppe() {
+    utfører.shutdown();
+  }
+}
@@ -0,0 +1,91 @@
+package no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
+import no.nav.bidrag.reisekostnad.feilhåndtering.InternFeil;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+/**
+ * Fonter, fargeprofil, stilark og logo som brukes ved PDF-generering. Ressursene leses fra classpath én gang, og deles av alle
+ * PdfRendererBuilder-instanser. Minnebruk og lastetid logges ved oppstart og eksponeres som metrikker.
+ */
+@Slf4j
+@Component
+public class PdfRessursregister implements MeterBinder {
+
+  static final String FONT_ARIAL = Pdfmaler.STI_TIL_PDF_TEMPLATE + "Arial.ttf";
+  static final String FARGEPROFIL_SRGB = Pdfmaler.STI_TIL_PDF_TEMPLATE + "sRGB.icc";
+
+  /**
+   * Ressurser som malen refererer til via classpath-protokollen, i tillegg til font og fargeprofil.
+   */
+  private static final String[] RESSURSER = {
+      FONT_ARIAL,
+      FARGEPROFIL_SRGB,
+      Pdfmaler.STI_TIL_PDF_TEMPLATE + "style.css",
+      Pdfmaler.STI_TIL_PDF_TEMPLATE + "ny-navlogo.png",
+      Pdfmaler.STI_TIL_PDF_TEMPLATE + "nav-logo-red.svg"
+  };
+
+  private static final Register REGISTER = lasteRessurser();
+
+  /**
+   * Returnerer innholdet i ressursen med oppgitt sti, eller null dersom ressursen ikke er lastet. Innholdet deles og skal ikke endres.
+   */
+  static byte[] hente(String sti) {
+    return REGISTER.ressurser().get(sti);
+  }
+
+  static byte[] henteArial() {
+    return hente(FONT_ARIAL);
+  }
+
+  static byte[] henteFargeprofil() {
+    return hente(FARGEPROFIL_SRGB);
+  }
+
+  @Override
+  public void bindTo(MeterRegistry registry) {
+    Gauge.builder("reisekostnad_pdf_ressurser_minnebruk", REGISTER, Register::antallBytes)
+        .description("Antall bytes brukt av fonter, fargeprofiler, stilark og logoer for PDF-generering")
+        .baseUnit("bytes")
+        .register(registry);
+    Gauge.builder("reisekostnad_pdf_ressurser_lastetid", REGISTER, r -> r.lastetid().toMillis())
+        .description("Tid brukt på å laste ressurser for PDF-generering")
+        .baseUnit("milliseconds")
+        .register(registry);
+  }
+
+  private static Register lasteRessurser() {
+    var start = System.nanoTime();
+    var ressurser = new LinkedHashMap<String, byte[]>();
+    for (String sti : RESSURSER) {
+      try (var input = new ClassPathResource(sti).getInputStream()) {
+        ressurser.put(sti, input.readAllBytes());
+      } catch (IOException ioe) {
+        throw new InternFeil(Feilkode.PDF_OPPRETTELSE_FEILET, ioe);
+      }
+    }
+
+    var register = new Register(Collections.unmodifiableMap(ressurser), Duration.ofNanos(System.nanoTime() - start));
+    log.info("Lastet {} ressurser for PDF-generering ({} bytes) på {} ms", ressurser.size(), register.antallBytes(),
+        register.lastetid().toMillis());
+    return register;
+  }
+
+  private record Register(Map<String, byte[]> ressurser, Duration lastetid) {
+
+    long antallBytes() {
+      return ressurser.values().stream().mapToLong(r -> r.length).sum();
+    }
+  }
+}
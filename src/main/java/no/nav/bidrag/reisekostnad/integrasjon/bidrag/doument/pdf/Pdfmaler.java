@@ -0,0 +1,58 @@
+package no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
+import no.nav.bidrag.reisekostnad.feilhåndtering.InternFeil;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * Holder på ferdig parsede HTML-maler for PDF-dokumentet, én per skriftspråk som har mal. Malene parses én gang ved oppstart. De lagrede
+ * dokumentene endres aldri; hver generering jobber på en egen kopi.
+ */
+@Slf4j
+final class Pdfmaler {
+
+  static final String STI_TIL_PDF_TEMPLATE = "/pdf-template/";
+
+  private static final Map<Skriftspråk, Document> MALER = lasteMaler();
+
+  private Pdfmaler() {
+  }
+
+  static Set<Skriftspråk> tilgjengeligeSkriftspråk() {
+    return MALER.keySet();
+  }
+
+  static Document henteKopi(Skriftspråk skriftspråk) {
+    var mal = MALER.get(skriftspråk);
+    if (mal == null) {
+      log.error("Fant ingen PDF-mal for skriftspråk {}", skriftspråk);
+      throw new InternFeil(Feilkode.PDF_OPPRETTELSE_FEILET);
+    }
+    return mal.clone();
+  }
+
+  private static Map<Skriftspråk, Document> lasteMaler() {
+    var maler = new EnumMap<Skriftspråk, Document>(Skriftspråk.class);
+    for (Skriftspråk skriftspråk : Skriftspråk.values()) {
+      var ressurs = new ClassPathResource(STI_TIL_PDF_TEMPLATE + skriftspråk.toString().toLowerCase() + ".html");
+      if (!ressurs.exists()) {
+        log.info("Ingen PDF-mal for skriftspråk {}", skriftspråk);
+        continue;
+      }
+      try (var input = ressurs.getInputStream()) {
+        maler.put(skriftspråk, Jsoup.parse(input, "UTF-8", ""));
+      } catch (IOException ioe) {
+        throw new InternFeil(Feilkode.PDF_OPPRETTELSE_FEILET, ioe);
+      }
+    }
+    return Collections.unmodifiableMap(maler);
+  }
+}
@@ -6,7 +6,12 @@ import static no.nav.bidrag.reisekostnad.konfigurasjon.Applikasjonskonfig.SIKKER
 import static no.nav.bidrag.reisekostnad.konfigurasjon.Cachekonfig.CACHE_FAMILIE;
 import static no.nav.bidrag.reisekostnad.konfigurasjon.Cachekonfig.CACHE_PERSON;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
 import lombok.extern.slf4j.Slf4j;
 import no.nav.bidrag.domene.ident.Personident;
 import no.nav.bidrag.reisekostnad.feilhåndtering.Persondatafeil;
@@ -16,6 +21,8 @@ import no.nav.bidrag.reisekostnad.konfigurasjon.cache.UserCacheable;
 import no.nav.bidrag.transport.person.PersonRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
@@ -32,19 +39,81 @@ public class BidragPersonkonsument {
 
   public static final String ENDEPUNKT_MOTPART_BARN_RELASJON = "/motpartbarnrelasjon";
   public static final String ENDEPUNKT_PERSONINFO = "/informasjon";
+  public static final String ENDEPUNKT_PERSONINFO_BOLK = "/informasjon/bolk";
   public static final String BIDRAG_PERSON_KONTEKSTROT = "/bidrag-person";
   private final RestTemplate clientCredentialsRestTemplate;
+  private final Samordnetinnhenting<Optional<HentFamilieRespons>> familieinnhenting;
+  private final Samordnetinnhenting<HentPersoninfoRespons> personinfoinnhenting;
+  private final AtomicBoolean bolkendepunktTilgjengelig = new AtomicBoolean(true);
 
   public static final String FORMAT_FØDSELSDATO = "yyyy-MM-dd";
 
   @Autowired
-  public BidragPersonkonsument(@Qualifier("bidrag-person-azure-client-credentials") RestTemplate clientCredentialsRestTemplate) {
+  public BidragPersonkonsument(@Qualifier("bidrag-person-azure-client-credentials") RestTemplate clientCredentialsRestTemplate,
+      MeterRegistry meterRegistry) {
     this.clientCredentialsRestTemplate = clientCredentialsRestTemplate;
+    this.familieinnhenting = new Samordnetinnhenting<>(ENDEPUNKT_MOTPART_BARN_RELASJON, meterRegistry);
+    this.personinfoinnhenting = new Samordnetinnhenting<>(ENDEPUNKT_PERSONINFO, meterRegistry);
   }
 
   @UserCacheable(CACHE_FAMILIE)
   @Retryable(value = Exception.class, backoff = @Backoff(delay = 5000, multiplier = 2.0))
   public Optional<HentFamilieRespons> hentFamilie(String personident) {
+    return hentFamilieFraBidragPerson(personident);
+  }
+
+  /**
+   * Personinfo er lik uansett hvem som spør, og caches derfor på personident alene. Tilgang kontrolleres av PersontilgangAspect før cachen.
+   */
+  @Cacheable(CACHE_PERSON)
+  @Retryable(value = Exception.class, backoff = @Backoff(delay = 1000, multiplier = 2.0))
+  public HentPersoninfoRespons hentPersoninfo(String personident) {
+    return hentPersoninfoFraBidragPerson(personident);
+  }
+
+  /**
+   * Henter familierelasjoner uten å gå via cachen. Brukes når cachen selv skal fylles.
+   */
+  public Optional<HentFamilieRespons> hentFamilieFraBidragPerson(String personident) {
+    return familieinnhenting.hente(personident, () -> henteFamilieFraBidragPerson(personident));
+  }
+
+  /**
+   * Henter personinfo uten å gå via cachen. Brukes når cachen selv skal fylles.
+   */
+  public HentPersoninfoRespons hentPersoninfoFraBidragPerson(String personident) {
+    return personinfoinnhenting.hente(personident, () -> hentePersoninfoFraBidragPerson(personident));
+  }
+
+  /**
+   * Henter personinfo for flere personer med ett kall, uten å gå via cachen. Personer bidrag-person ikke finner er utelatt fra svaret. Returnerer
+   * tomt dersom bolkendepunktet ikke finnes, og bolkendepunktet brukes da ikke igjen før applikasjonen startes på nytt.
+   */
+  public Optional<Map<String, HentPersoninfoRespons>> hentPersoninfoIBolkFraBidragPerson(Collection<String> personidenter) {
+    if (!bolkendepunktTilgjengelig.get()) {
+      return Optional.empty();
+    }
+
+    var forespørsel = personidenter.stream().map(personident -> new PersonRequest(new Personident(personident))).toList();
+    try {
+      var hentPersoninfo = clientCredentialsRestTemplate.exchange(BIDRAG_PERSON_KONTEKSTROT + ENDEPUNKT_PERSONINFO_BOLK, HttpMethod.POST,
+          new HttpEntity<>(forespørsel),
+          new ParameterizedTypeReference<Map<String, HentPersoninfoRespons>>() {});
+      return Optional.of(Optional.ofNullable(hentPersoninfo.getBody()).orElseGet(Map::of));
+    } catch (HttpStatusCodeException hsce) {
+      if (Set.of(HttpStatus.NOT_FOUND, HttpStatus.METHOD_NOT_ALLOWED, HttpStatus.NOT_IMPLEMENTED).contains(hsce.getStatusCode())) {
+        log.warn("Bolkendepunktet for personinfo i bidrag-person returnerte httpstatus {}. Personinfo hentes heretter med enkeltkall.",
+            hsce.getStatusCode());
+        bolkendepunktTilgjengelig.set(false);
+        return Optional.empty();
+      }
+      SIKKER_LOGG.warn("Kall mot bidrag-person for henting av personinfo i bolk returnerte httpstatus {} for personidentene {}",
+          hsce.getStatusCode(), personidenter, hsce);
+      throw new Persondatafeil(PDL_FEIL, hsce.getStatusCode());
+    }
+  }
+
+  private Optional<HentFamilieRespons> henteFamilieFraBidragPerson(String personident) {
     var forespørsel = new PersonRequest(new Personident(personident));
 
     try {
@@ -65,9 +134,7 @@ public class BidragPersonkonsument {
     }
   }
 
-  @UserCacheable(CACHE_PERSON)
-  @Retryable(value = Exception.class, backoff = @Backoff(delay = 1000, multiplier = 2.0))
-  public HentPersoninfoRespons hentPersoninfo(String personident) {
+  private HentPersoninfoRespons hentePersoninfoFraBidragPerson(String personident) {
     var forespørsel = new PersonRequest(new Personident(personident));
     try {
       var hentPersoninfo = clientCredentialsRestTemplate.exchange(BIDRAG_PERSON_KONTEKSTROT + ENDEPUNKT_PERSONINFO, HttpMethod.POST,
@@ -0,0 +1,138 @@
+package no.nav.bidrag.reisekostnad.integrasjon.bidrag.person;
+
+import static no.nav.bidrag.reisekostnad.konfigurasjon.Cachekonfig.CACHE_PERSON;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import lombok.extern.slf4j.Slf4j;
+import no.nav.bidrag.reisekostnad.aop.Persontilgang;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentPersoninfoRespons;
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+/**
+ * Henter personinfo for alle personene i en forespørsel eller et arkiveringsgrunnlag samlet. Personer som finnes i personcachen hentes derfra, og
+ * resten hentes med ett kall mot bolkendepunktet i bidrag-person. Personer bolkendepunktet ikke returnerte, eller alle dersom bolkendepunktet
+ * ikke er tilgjengelig, hentes med parallelle enkeltkall. Tilgang kontrolleres for alle personene samlet før noe hentes, og enkeltkallene kjøres
+ * derfor som system i egne tråder uten pålogget person.
+ */
+@Slf4j
+@Component
+public class Personlaster {
+
+  private final BidragPersonkonsument bidragPersonkonsument;
+  private final Persontilgang persontilgang;
+  private final ObjectProvider<CacheManager> cacheManager;
+  private final Egenskaper egenskaper;
+  private final Counter fraCache;
+  private final Counter fraBolk;
+  private final Counter fraEnkeltkall;
+
+  public Personlaster(BidragPersonkonsument bidragPersonkonsument, Persontilgang persontilgang, ObjectProvider<CacheManager> cacheManager,
+      Egenskaper egenskaper, MeterRegistry meterRegistry) {
+    this.bidragPersonkonsument = bidragPersonkonsument;
+    this.persontilgang = persontilgang;
+    this.cacheManager = cacheManager;
+    this.egenskaper = egenskaper;
+    this.fraCache = telle("cache", meterRegistry);
+    this.fraBolk = telle("bolk", meterRegistry);
+    this.fraEnkeltkall = telle("enkeltkall", meterRegistry);
+  }
+
+  public Map<String, HentPersoninfoRespons> hente(Collection<String> personidenter) {
+    var identer = personidenter.stream().filter(Objects::nonNull).filter(p -> !p.isEmpty()).distinct().toList();
+    persontilgang.kontrollere(identer);
+
+    var personinfo = new HashMap<String, HentPersoninfoRespons>();
+    var personcache = henteCache();
+    if (personcache != null) {
+      identer.forEach(ident -> {
+        var element = personcache.get(ident, HentPersoninfoRespons.class);
+        if (element != null) {
+          personinfo.put(ident, element);
+        }
+      });
+      fraCache.increment(personinfo.size());
+    }
+
+    var mangler = identer.stream().filter(ident -> !personinfo.containsKey(ident)).toList();
+    if (!mangler.isEmpty() && egenskaper.getPersonoppslag().getBolkoppslag()) {
+      var fraBidragPerson = henteIBolk(mangler);
+      fraBidragPerson.forEach((ident, element) -> {
+        if (mangler.contains(ident) && element != null) {
+          personinfo.put(ident, element);
+          if (personcache != null) {
+            personcache.put(ident, element);
+          }
+          fraBolk.increment();
+        }
+      });
+    }
+
+    var enkeltkall = identer.stream().filter(ident -> !personinfo.containsKey(ident)).toList();
+    personinfo.putAll(henteMedEnkeltkall(enkeltkall));
+    return personinfo;
+  }
+
+  private Map<String, HentPersoninfoRespons> henteIBolk(Collection<String> personidenter) {
+    try {
+      return bidragPersonkonsument.hentPersoninfoIBolkFraBidragPerson(personidenter).orElseGet(Map::of);
+    } catch (RuntimeException e) {
+      log.warn("Henting av personinfo i bolk feilet. Personinfo hentes med enkeltkall.", e);
+      return Map.of();
+    }
+  }
+
+  /**
+   * Enkeltkallene går via cachen og har egne nye forsøk. Første feil avbryter innhentingen.
+   */
+  private Map<String, HentPersoninfoRespons> henteMedEnkeltkall(Collection<String> personidenter) {
+    if (personidenter.isEmpty()) {
+      return Map.of();
+    }
+
+    fraEnkeltkall.increment(personidenter.size());
+    try (var utfører = Executors.newVirtualThreadPerTaskExecutor()) {
+      var kall = new HashMap<String, CompletableFuture<HentPersoninfoRespons>>();
+      personidenter.forEach(ident -> kall.put(ident, CompletableFuture.supplyAsync(
+          () -> Persontilgang.somSystem(() -> bidragPersonkonsument.hentPersoninfo(ident)), utfører)));
+
+      var personinfo = new HashMap<String, HentPersoninfoRespons>();
+      kall.forEach((ident, svar) -> personinfo.put(ident, vente(svar)));
+      return personinfo;
+    }
+  }
+
+  private Cache henteCache() {
+    var cacheManager = this.cacheManager.getIfAvailable();
+    return cacheManager == null ? null : cacheManager.getCache(CACHE_PERSON);
+  }
+
+  private static HentPersoninfoRespons vente(CompletableFuture<HentPersoninfoRespons> svar) {
+    try {
+      return svar.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException feil) {
+        throw feil;
+      }
+      throw e;
+    }
+  }
+
+  private static Counter telle(String kilde, MeterRegistry meterRegistry) {
+    return Counter.builder("reisekostnad_personoppslag")
+        .tag("kilde", kilde)
+        .description("Antall personer hentet samlet, fordelt på om personinfo kom fra cachen, bolkkallet eller enkeltkall")
+        .register(meterRegistry);
+  }
+}
@@ -0,0 +1,71 @@
+package no.nav.bidrag.reisekostnad.integrasjon.bidrag.person;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Samordner samtidige kall mot bidrag-person for samme personident. Det første kallet går videre, mens kall som kommer mens det pågår venter
+ * på og får samme svar eller feil. Svaret holdes ikke etter at kallet er ferdig; det er cachens oppgave.
+ */
+final class Samordnetinnhenting<V> {
+
+  private final ConcurrentHashMap<String, CompletableFuture<V>> pågåendeKall = new ConcurrentHashMap<>();
+  private final Counter samordnet;
+  private final Counter videresendt;
+  private final Timer innhentingstid;
+
+  Samordnetinnhenting(String endepunkt, MeterRegistry meterRegistry) {
+    this.samordnet = Counter.builder("reisekostnad_bidrag_person_kall")
+        .tag("endepunkt", endepunkt)
+        .tag("utfall", "samordnet")
+        .description("Antall kall som ventet på et pågående kall for samme personident")
+        .register(meterRegistry);
+    this.videresendt = Counter.builder("reisekostnad_bidrag_person_kall")
+        .tag("endepunkt", endepunkt)
+        .tag("utfall", "videresendt")
+        .description("Antall kall som ble sendt videre til bidrag-person")
+        .register(meterRegistry);
+    this.innhentingstid = Timer.builder("reisekostnad_bidrag_person_innhentingstid")
+        .tag("endepunkt", endepunkt)
+        .description("Tidsbruk for kall som ble sendt videre til bidrag-person, det vil si innlasting ved bom i cachen")
+        .register(meterRegistry);
+  }
+
+  V hente(String personident, Supplier<V> innhenting) {
+    var nyttKall = new CompletableFuture<V>();
+    var pågåendeKall = this.pågåendeKall.putIfAbsent(personident, nyttKall);
+
+    if (pågåendeKall != null) {
+      samordnet.increment();
+      return vente(pågåendeKall);
+    }
+
+    videresendt.increment();
+    try {
+      var svar = innhentingstid.record(innhenting);
+      nyttKall.complete(svar);
+      return svar;
+    } catch (RuntimeException e) {
+      nyttKall.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.pågåendeKall.remove(personident, nyttKall);
+    }
+  }
+
+  private V vente(CompletableFuture<V> pågåendeKall) {
+    try {
+      return pågåendeKall.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException feil) {
+        throw feil;
+      }
+      throw e;
+    }
+  }
+}
@@ -7,17 +7,17 @@ import java.time.LocalDateTime;
 import java.time.ZoneId;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varselbestilling;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varseltype;
 import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper;
-import no.nav.brukernotifikasjon.schemas.builders.BeskjedInputBuilder;
-import no.nav.brukernotifikasjon.schemas.input.BeskjedInput;
+import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste;
 import no.nav.brukernotifikasjon.schemas.input.NokkelInput;
-import org.springframework.kafka.core.KafkaTemplate;
 
 @Slf4j
 @Value
 public class Beskjedprodusent {
 
-  KafkaTemplate<NokkelInput, BeskjedInput> kafkaTemplate;
+  Databasetjeneste databasetjeneste;
   URL reisekostnadForside;
   Egenskaper egenskaper;
 
@@ -29,7 +29,7 @@ public class Beskjedprodusent {
       boolean lenkeTilOversikt,
       NokkelInput nokkel) {
 
-    var beskjed = oppretteBeskjed(meldingTilBruker.hentFormatertMelding(), medEksternVarsling, reisekostnadForside);
+    var beskjed = oppretteBeskjed(nokkel, meldingTilBruker.hentFormatertMelding(), medEksternVarsling, reisekostnadForside);
 
     if (!egenskaper.getBrukernotifikasjon().getSkruddPaa()) {
       log.warn("Brukernotifikasjoner er skrudd av - {} ble derfor ikke sendt.", meldingTilBruker.getMelding());
@@ -37,30 +37,35 @@ public class Beskjedprodusent {
     }
 
     try {
-      kafkaTemplate.send(egenskaper.getBrukernotifikasjon().getEmneBeskjed(), nokkel, beskjed);
+      databasetjeneste.bestilleVarsel(beskjed);
     } catch (Exception e) {
       log.error("Opprettelse av beskjed {} til forelder feilet!", meldingTilBruker.getMelding(), e);
       SIKKER_LOGG.error("Opprettelse av beskjed {} til forelder med personident {} feilet!", meldingTilBruker.getMelding(), personidentForelder);
     }
 
     var medEllerUten = medEksternVarsling ? "med" : "uten";
-    log.info("Beskjed {}, {} ekstern varsling og eventId {} er sendt til forelder.", meldingTilBruker.getMelding(), medEllerUten,
+    log.info("Beskjed {}, {} ekstern varsling og eventId {} er bestilt til forelder.", meldingTilBruker.getMelding(), medEllerUten,
         nokkel.getEventId());
-    SIKKER_LOGG.info("Beskjed {}, {} ekstern varsling og eventId {} er sendt til forelder med personid.", meldingTilBruker.getMelding(), medEllerUten,
+    SIKKER_LOGG.info("Beskjed {}, {} ekstern varsling og eventId {} er bestilt til forelder med personid.", meldingTilBruker.getMelding(), medEllerUten,
         nokkel.getEventId(), personidentForelder);
   }
 
-  private BeskjedInput oppretteBeskjed(String meldingTilBruker, boolean medEksternVarsling, URL lenke) {
+  private Varselbestilling oppretteBeskjed(NokkelInput nokkel, String meldingTilBruker, boolean medEksternVarsling, URL lenke) {
 
-    return new BeskjedInputBuilder()
-        .withTidspunkt(LocalDateTime.now(ZoneId.of("UTC")))
-        .withEksternVarsling(medEksternVarsling)
-        .withSynligFremTil(
+    var nå = LocalDateTime.now();
+    return Varselbestilling.builder()
+        .type(Varseltype.BESKJED)
+        .eventId(nokkel.getEventId())
+        .personident(nokkel.getFodselsnummer())
+        .eksternVarsling(medEksternVarsling)
+        .synligFremTil(
             LocalDateTime.now(ZoneId.of("UTC")).withHour(0)
                 .plusMonths(egenskaper.getBrukernotifikasjon().getSynlighetBeskjedAntallMaaneder()))
-        .withSikkerhetsnivaa(egenskaper.getBrukernotifikasjon().getSikkerhetsnivaaBeskjed())
-        .withLink(lenke)
-        .withTekst(meldingTilBruker)
+        .sikkerhetsnivå(egenskaper.getBrukernotifikasjon().getSikkerhetsnivaaBeskjed())
+        .lenke(lenke.toString())
+        .tekst(meldingTilBruker)
+        .opprettet(nå)
+        .tilgjengeligFra(nå)
         .build();
   }
 }
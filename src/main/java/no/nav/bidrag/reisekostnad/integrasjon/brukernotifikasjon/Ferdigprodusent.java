@@ -1,24 +1,21 @@
 package no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon;
 
-import java.time.ZoneId;
-import java.time.ZonedDateTime;
+import java.time.LocalDateTime;
 import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
 import no.nav.bidrag.reisekostnad.database.dao.OppgavebestillingDao;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varselbestilling;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varseltype;
 import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
 import no.nav.bidrag.reisekostnad.feilhåndtering.InternFeil;
 import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper;
 import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste;
-import no.nav.brukernotifikasjon.schemas.builders.DoneInputBuilder;
-import no.nav.brukernotifikasjon.schemas.input.DoneInput;
 import no.nav.brukernotifikasjon.schemas.input.NokkelInput;
-import org.springframework.kafka.core.KafkaTemplate;
 
 @Slf4j
 @Value
 public class Ferdigprodusent {
 
-  KafkaTemplate kafkaTemplate;
   Databasetjeneste databasetjeneste;
   OppgavebestillingDao oppgavebestillingDao;
   Egenskaper egenskaper;
@@ -33,22 +30,25 @@ public class Ferdigprodusent {
     }
 
     if (oppgaveSomSkalFerdigstilles.isPresent() && oppgaveSomSkalFerdigstilles.get().getFerdigstilt() == null) {
-      var melding = oppretteDone();
       try {
-        kafkaTemplate.send(egenskaper.getBrukernotifikasjon().getEmneFerdig(), nokkel, melding);
+        databasetjeneste.bestilleFerdigstillingAvOppgave(oppretteDone(nokkel));
       } catch (Exception e) {
         throw new InternFeil(Feilkode.BRUKERNOTIFIKASJON_OPPRETTE_OPPGAVE, e);
       }
-      log.info("Ferdigmelding ble sendt for oppgave med eventId {}.");
-      databasetjeneste.setteOppgaveTilFerdigstilt(nokkel.getEventId());
+      log.info("Ferdigmelding ble bestilt for oppgave med eventId {}.", nokkel.getEventId());
     } else {
       log.warn("Fant ingen aktiv oppgavebestilling for eventId {}. Bestiller derfor ikke ferdigstilling.", nokkel.getEventId());
     }
   }
 
-  private DoneInput oppretteDone() {
-    return new DoneInputBuilder()
-        .withTidspunkt(ZonedDateTime.now(ZoneId.of("UTC")).toLocalDateTime())
+  private Varselbestilling oppretteDone(NokkelInput nokkel) {
+    var nå = LocalDateTime.now();
+    return Varselbestilling.builder()
+        .type(Varseltype.FERDIG)
+        .eventId(nokkel.getEventId())
+        .personident(nokkel.getFodselsnummer())
+        .opprettet(nå)
+        .tilgjengeligFra(nå)
         .build();
   }
 }
@@ -0,0 +1,171 @@
+package no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon;
+
+import static no.nav.bidrag.reisekostnad.konfigurasjon.Brukernotifikasjonskonfig.NAMESPACE_BIDRAG;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import lombok.extern.slf4j.Slf4j;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varselbestilling;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varseltype;
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper;
+import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste;
+import no.nav.brukernotifikasjon.schemas.builders.BeskjedInputBuilder;
+import no.nav.brukernotifikasjon.schemas.builders.DoneInputBuilder;
+import no.nav.brukernotifikasjon.schemas.builders.NokkelInputBuilder;
+import no.nav.brukernotifikasjon.schemas.builders.OppgaveInputBuilder;
+import no.nav.brukernotifikasjon.schemas.input.NokkelInput;
+import org.apache.avro.specific.SpecificRecord;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+/**
+ * Sender bestilte brukernotifikasjoner til Kafka. Alle varsler i en runde sendes før det ventes på kvittering, slik at produsenten kan samle dem
+ * i batcher. Varsler registreres som sendt når Kafka har bekreftet dem. Varsler som feiler blir liggende, og sendes på nytt når reservasjonen
+ * utløper.
+ */
+@Slf4j
+public class Varselutsender {
+
+  private static final Duration TIDSAVBRUDD_KVITTERING = Duration.ofMinutes(1);
+
+  private final KafkaTemplate<NokkelInput, SpecificRecord> kafkaTemplate;
+  private final Databasetjeneste databasetjeneste;
+  private final Egenskaper egenskaper;
+  private final MeterRegistry meterRegistry;
+
+  public Varselutsender(KafkaTemplate<NokkelInput, SpecificRecord> kafkaTemplate, Databasetjeneste databasetjeneste, Egenskaper egenskaper,
+      MeterRegistry meterRegistry) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.databasetjeneste = databasetjeneste;
+    this.egenskaper = egenskaper;
+    this.meterRegistry = meterRegistry;
+  }
+
+  @Scheduled(cron = "${kjøreplan.databehandling.varselbestillinger}")
+  public void sendeBestilteVarsler() {
+    sende();
+  }
+
+  /**
+   * Sender varsler til det ikke er flere ledige. Returnerer antall varsler som ble sendt.
+   */
+  public int sende() {
+    var brukernotifikasjon = egenskaper.getBrukernotifikasjon();
+    var antallSendt = 0;
+    List<Varselbestilling> bestillinger;
+
+    do {
+      bestillinger = databasetjeneste.reservereVarselbestillinger(brukernotifikasjon.getBestillingerPerRunde(),
+          brukernotifikasjon.getReservasjonstid(), brukernotifikasjon.getMaksAntallForsoek());
+      antallSendt += sende(bestillinger);
+    } while (bestillinger.size() == brukernotifikasjon.getBestillingerPerRunde());
+
+    if (antallSendt > 0) {
+      log.info("Sendte {} brukernotifikasjoner", antallSendt);
+    }
+    return antallSendt;
+  }
+
+  private int sende(List<Varselbestilling> bestillinger) {
+    if (bestillinger.isEmpty()) {
+      return 0;
+    }
+
+    var sendt = new ConcurrentLinkedQueue<Integer>();
+    var kvitteringer = new ArrayList<CompletableFuture<?>>();
+
+    for (Varselbestilling bestilling : bestillinger) {
+      try {
+        kvitteringer.add(kafkaTemplate.send(henteEmne(bestilling.getType()), oppretteNøkkel(bestilling), oppretteMelding(bestilling))
+            .whenComplete((resultat, feil) -> {
+              if (feil == null) {
+                sendt.add(bestilling.getId());
+                telle("reisekostnad_varsel_sendt", bestilling.getType());
+              } else {
+                log.error("Sending av {} med eventId {} feilet", bestilling.getType(), bestilling.getEventId(), feil);
+                telle("reisekostnad_varsel_feilet", bestilling.getType());
+              }
+            }));
+      } catch (Exception e) {
+        log.error("Sending av {} med eventId {} feilet", bestilling.getType(), bestilling.getEventId(), e);
+        telle("reisekostnad_varsel_feilet", bestilling.getType());
+      }
+    }
+
+    kafkaTemplate.flush();
+    ventePåKvitteringer(kvitteringer);
+    databasetjeneste.registrereVarslerSomSendt(List.copyOf(sendt));
+    return sendt.size();
+  }
+
+  private void ventePåKvitteringer(List<CompletableFuture<?>> kvitteringer) {
+    try {
+      CompletableFuture.allOf(kvitteringer.toArray(CompletableFuture[]::new)).get(TIDSAVBRUDD_KVITTERING.toMillis(), TimeUnit.MILLISECONDS);
+    } catch (ExecutionException e) {
+      // Feil er logget per varsel
+    } catch (TimeoutException e) {
+      log.warn("Fikk ikke kvittering fra Kafka for alle varsler innen {}. Varsler uten kvittering sendes på nytt senere.", TIDSAVBRUDD_KVITTERING);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private String henteEmne(Varseltype type) {
+    return switch (type) {
+      case BESKJED -> egenskaper.getBrukernotifikasjon().getEmneBeskjed();
+      case OPPGAVE -> egenskaper.getBrukernotifikasjon().getEmneOppgave();
+      case FERDIG -> egenskaper.getBrukernotifikasjon().getEmneFerdig();
+    };
+  }
+
+  private NokkelInput oppretteNøkkel(Varselbestilling bestilling) {
+    return new NokkelInputBuilder()
+        .withEventId(bestilling.getEventId())
+        .withFodselsnummer(bestilling.getPersonident())
+        .withGrupperingsId(egenskaper.getBrukernotifikasjon().getGrupperingsidReisekostnad())
+        .withNamespace(NAMESPACE_BIDRAG)
+        .withAppnavn(egenskaper.getAppnavnReisekostnad())
+        .build();
+  }
+
+  private SpecificRecord oppretteMelding(Varselbestilling bestilling) throws MalformedURLException {
+    var tidspunkt = bestilling.getOpprettet().atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    return switch (bestilling.getType()) {
+      case BESKJED -> new BeskjedInputBuilder()
+          .withTidspunkt(tidspunkt)
+          .withEksternVarsling(bestilling.isEksternVarsling())
+          .withSynligFremTil(bestilling.getSynligFremTil())
+          .withSikkerhetsnivaa(bestilling.getSikkerhetsnivå())
+          .withLink(new URL(bestilling.getLenke()))
+          .withTekst(bestilling.getTekst())
+          .build();
+      case OPPGAVE -> new OppgaveInputBuilder()
+          .withTidspunkt(tidspunkt)
+          .withEksternVarsling(bestilling.isEksternVarsling())
+          .withLink(new URL(bestilling.getLenke()))
+          .withSikkerhetsnivaa(bestilling.getSikkerhetsnivå())
+          .withSynligFremTil(bestilling.getSynligFremTil())
+          .withTekst(bestilling.getTekst())
+          .build();
+      case FERDIG -> new DoneInputBuilder()
+          .withTidspunkt(tidspunkt)
+          .build();
+    };
+  }
+
+  private void telle(String navn, Varseltype type) {
+    Counter.builder(navn).tag("type", type.name()).description("Antall brukernotifikasjoner per type").register(meterRegistry).increment();
+  }
+}
@@ -5,8 +5,10 @@ import static net.javacrumbs.shedlock.support.Utils.getHostname;
 
 import io.confluent.kafka.serializers.KafkaAvroSerializer;
 import io.confluent.kafka.serializers.KafkaAvroSerializerConfig;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.net.MalformedURLException;
 import java.net.URL;
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
 import no.nav.bidrag.reisekostnad.database.dao.OppgavebestillingDao;
@@ -14,17 +16,15 @@ import no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon.Beskjedprodusen
 import no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon.Brukernotifikasjonkonsument;
 import no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon.Ferdigprodusent;
 import no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon.Oppgaveprodusent;
+import no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon.Varselutsender;
 import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste;
-import no.nav.brukernotifikasjon.schemas.input.BeskjedInput;
-import no.nav.brukernotifikasjon.schemas.input.DoneInput;
 import no.nav.brukernotifikasjon.schemas.input.NokkelInput;
-import no.nav.brukernotifikasjon.schemas.input.OppgaveInput;
+import org.apache.avro.specific.SpecificRecord;
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.producer.ProducerConfig;
 import org.apache.kafka.common.config.SaslConfigs;
 import org.apache.kafka.common.config.SslConfigs;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -65,12 +65,17 @@ public class Brukernotifikasjonskonfig {
 
   private Map<String, Object> getKafkaConfigProps() {
     Map<String, Object> configProps = new HashMap<>();
-    configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, 1);
+    configProps.put(ProducerConfig.BATCH_SIZE_CONFIG, egenskaper.getBrukernotifikasjon().getBatchstoerrelse());
+    configProps.put(ProducerConfig.LINGER_MS_CONFIG, egenskaper.getBrukernotifikasjon().getLingerMs());
+    configProps.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, egenskaper.getBrukernotifikasjon().getKomprimering());
     configProps.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
     configProps.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, KafkaAvroSerializer.class);
     configProps.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, KafkaAvroSerializer.class);
     configProps.put(ProducerConfig.CLIENT_ID_CONFIG, NAMESPACE_BIDRAG + getHostname());
     configProps.put(ProducerConfig.MAX_BLOCK_MS_CONFIG, 40000);
+    // Venting på metadata skjer i en synchronized-blokk som låser bæretråden når send kalles fra en virtuell tråd. Metadata for emnene holdes
+    // derfor lenger enn standard fem minutter, slik at ventingen i praksis bare skjer ved første sending.
+    configProps.put(ProducerConfig.METADATA_MAX_IDLE_CONFIG, (int) Duration.ofHours(24).toMillis());
     configProps.put(ProducerConfig.ACKS_CONFIG, "all");
     configProps.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, "true");
     configProps.put(KafkaAvroSerializerConfig.USER_INFO_CONFIG, aivenSchemaRegistryCredentials);
@@ -90,19 +95,18 @@ public class Brukernotifikasjonskonfig {
     return configProps;
   }
 
-  @Bean("beskjed")
-  public KafkaTemplate<NokkelInput, BeskjedInput> kafkaTemplateBeskjed() {
-    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(getKafkaConfigProps()));
-  }
-
-  @Bean("ferdig")
-  public KafkaTemplate<NokkelInput, DoneInput> kafkaTemplateFerdig() {
+  /**
+   * Én produsent deles av alle typer brukernotifikasjoner, slik at meldinger til samme partisjon kan samles i batcher.
+   */
+  @Bean
+  public KafkaTemplate<NokkelInput, SpecificRecord> kafkaTemplateBrukernotifikasjon() {
     return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(getKafkaConfigProps()));
   }
 
-  @Bean("oppgave")
-  public KafkaTemplate<NokkelInput, OppgaveInput> kafkaTemplateOppgave() {
-    return new KafkaTemplate<>(new DefaultKafkaProducerFactory<>(getKafkaConfigProps()));
+  @Bean
+  Varselutsender varselutsender(KafkaTemplate<NokkelInput, SpecificRecord> kafkaTemplate, Databasetjeneste databasetjeneste,
+      MeterRegistry meterRegistry) {
+    return new Varselutsender(kafkaTemplate, databasetjeneste, egenskaper, meterRegistry);
   }
 
   @Bean
@@ -112,21 +116,18 @@ public class Brukernotifikasjonskonfig {
   }
 
   @Bean
-  Beskjedprodusent beskjedprodusent(@Qualifier("beskjed") KafkaTemplate<NokkelInput, BeskjedInput> kafkaTemplate) throws MalformedURLException {
-    return new Beskjedprodusent(kafkaTemplate, toUrl(egenskaper.getUrlReisekostnad()), egenskaper);
+  Beskjedprodusent beskjedprodusent(Databasetjeneste databasetjeneste) throws MalformedURLException {
+    return new Beskjedprodusent(databasetjeneste, toUrl(egenskaper.getUrlReisekostnad()), egenskaper);
   }
 
   @Bean
-  Oppgaveprodusent oppgaveprodusent(
-      @Qualifier("oppgave") KafkaTemplate<NokkelInput, OppgaveInput> kafkaTemplate, Databasetjeneste databasetjeneste)
-      throws MalformedURLException {
-    return new Oppgaveprodusent(kafkaTemplate, databasetjeneste, toUrl(egenskaper.getUrlReisekostnad()), egenskaper);
+  Oppgaveprodusent oppgaveprodusent(Databasetjeneste databasetjeneste) throws MalformedURLException {
+    return new Oppgaveprodusent(databasetjeneste, toUrl(egenskaper.getUrlReisekostnad()), egenskaper);
   }
 
   @Bean
-  Ferdigprodusent ferdigprodusent(@Qualifier("ferdig") KafkaTemplate<NokkelInput, DoneInput> kafkaTemplate, Databasetjeneste databasetjeneste,
-      OppgavebestillingDao oppgavebestillingDao) {
-    return new Ferdigprodusent(kafkaTemplate, databasetjeneste, oppgavebestillingDao, egenskaper);
+  Ferdigprodusent ferdigprodusent(Databasetjeneste databasetjeneste, OppgavebestillingDao oppgavebestillingDao) {
+    return new Ferdigprodusent(databasetjeneste, oppgavebestillingDao, egenskaper);
   }
 
   private URL toUrl(String url) throws MalformedURLException {
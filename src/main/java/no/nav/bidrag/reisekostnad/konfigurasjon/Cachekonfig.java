@@ -1,17 +1,26 @@
 package no.nav.bidrag.reisekostnad.konfigurasjon;
 
 import com.github.benmanes.caffeine.cache.Caffeine;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.BidragPersonkonsument;
 import no.nav.bidrag.reisekostnad.konfigurasjon.cache.CacheEvictBeforeWorkingHours;
+import no.nav.bidrag.reisekostnad.konfigurasjon.cache.Cachevekter;
+import no.nav.bidrag.reisekostnad.konfigurasjon.cache.ForfriskendeCache;
 import no.nav.bidrag.reisekostnad.konfigurasjon.cache.UserCacheKey;
 import no.nav.bidrag.reisekostnad.konfigurasjon.cache.UserCacheKeyGenerator;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.cache.interceptor.KeyGenerator;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.context.annotation.Profile;
+import org.springframework.util.unit.DataSize;
 
 @Configuration
 @EnableCaching
@@ -24,18 +33,40 @@ public class Cachekonfig {
   public static final String CACHE_FAMILIE = "familie-cache";
 
   @Bean
-  public CacheManager cacheManager() {
-    CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager();
-    caffeineCacheManager.registerCustomCache(CACHE_PERSON,
-        Caffeine.newBuilder().expireAfter(new CacheEvictBeforeWorkingHours()).build()
-    );
-    caffeineCacheManager.registerCustomCache(CACHE_FAMILIE,
-        Caffeine.newBuilder().expireAfter(new CacheEvictBeforeWorkingHours()).build()
-    );
+  public CacheManager cacheManager(Egenskaper egenskaper, @Lazy BidragPersonkonsument bidragPersonkonsument) {
+    var innhenting = Map.<String, Function<String, Object>>of(
+        CACHE_PERSON, bidragPersonkonsument::hentPersoninfoFraBidragPerson,
+        CACHE_FAMILIE, bidragPersonkonsument::hentFamilieFraBidragPerson);
+    var forfriskingsvindu = egenskaper.getPersoncache().getForfriskingsvindu();
+    var utfører = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("cacheforfrisking-", 0).factory());
+
+    CaffeineCacheManager caffeineCacheManager = new CaffeineCacheManager() {
+      @Override
+      protected Cache adaptCaffeineCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> cache) {
+        if (!innhenting.containsKey(name)) {
+          return super.adaptCaffeineCache(name, cache);
+        }
+        return new ForfriskendeCache(name, cache, innhenting.get(name)::apply, forfriskingsvindu, utfører);
+      }
+    };
+    caffeineCacheManager.registerCustomCache(CACHE_PERSON, bygge(egenskaper.getPersoncache().getMaksvektPerson(), egenskaper));
+    caffeineCacheManager.registerCustomCache(CACHE_FAMILIE, bygge(egenskaper.getPersoncache().getMaksvektFamilie(), egenskaper));
 
     return caffeineCacheManager;
   }
 
+  /**
+   * Statistikken bindes til MeterRegistry av Spring Boot Actuator, og eksponeres som cache_gets, cache_puts og cache_evictions.
+   */
+  private static com.github.benmanes.caffeine.cache.Cache<Object, Object> bygge(DataSize maksvekt, Egenskaper egenskaper) {
+    return Caffeine.newBuilder()
+        .expireAfter(new CacheEvictBeforeWorkingHours(egenskaper.getPersoncache().getSpredning()))
+        .maximumWeight(maksvekt.toBytes())
+        .weigher(new Cachevekter())
+        .recordStats()
+        .build();
+  }
+
   @Bean(UserCacheKey.GENERATOR_BEAN)
   public KeyGenerator userKeyGenerator() {
     return new UserCacheKeyGenerator();
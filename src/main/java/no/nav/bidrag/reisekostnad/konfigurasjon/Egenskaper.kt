@@ -4,6 +4,8 @@ import org.springframework.boot.context.properties.ConfigurationProperties
 import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
+import org.springframework.util.unit.DataSize
+import java.time.Duration
 
 @Configuration
 @EnableConfigurationProperties
@@ -22,8 +24,18 @@ class Egenskaperkonfig {
 data class Egenskaper (
     var appnavnReisekostnad: String = "bidrag-reisekostnad",
     var urlReisekostnad: String = "",
-    var brukernotifikasjon: Brukernotifikasjon = Brukernotifikasjon())
+    var brukernotifikasjon: Brukernotifikasjon = Brukernotifikasjon(),
+    var pdfgenerering: Pdfgenerering = Pdfgenerering(),
+    var arkivering: Arkivering = Arkivering(),
+    var anonymisering: Anonymisering = Anonymisering(),
+    var personcache: Personcache = Personcache(),
+    var personoppslag: Personoppslag = Personoppslag(),
+    var httpklient: Httpklient = Httpklient(),
+    var bolkjobb: Bolkjobb = Bolkjobb())
 
+/**
+ * Varsler sendes i runder på inntil bestillingerPerRunde. Batchstørrelse, linger og komprimering gjelder Kafka-produsenten.
+ */
 @ConfigurationProperties(prefix = "brukernotifikasjon")
 data class Brukernotifikasjon(
     var emneBeskjed: String = "min-side.aapen-brukernotifikasjon-beskjed-v1",
@@ -34,7 +46,101 @@ data class Brukernotifikasjon(
     var levetidOppgaveAntallDager: Int = 30,
     var sikkerhetsnivaaBeskjed: Int = 3,
     var sikkerhetsnivaaOppgave: Int = 3,
-    var skruddPaa: Boolean = true
+    var skruddPaa: Boolean = true,
+    var bestillingerPerRunde: Int = 500,
+    var reservasjonstid: Duration = Duration.ofMinutes(5),
+    var maksAntallForsoek: Int = 10,
+    var batchstoerrelse: Int = 65536,
+    var lingerMs: Int = 20,
+    var komprimering: String = "snappy"
 )
 
+/**
+ * Antall tråder settes til antall tilgjengelige kjerner dersom verdien er 0 eller lavere. Tidsavbruddet er hvor lenge kalleren venter på en
+ * PDF, inkludert tid i kø, og holdes kort siden en PDF normalt genereres på under ett sekund.
+ */
+data class Pdfgenerering(
+    var antallTraader: Int = 0,
+    var koekapasitet: Int = 20,
+    var tidsavbrudd: Duration = Duration.ofSeconds(10)
+)
+
+/**
+ * Samtidighet angir maks antall forespørsler som behandles samtidig i hvert av stegene i arkiveringen. Laste og lagre bruker hver sin
+ * databaseforbindelse, og holdes til sammen godt under størrelsen på forbindelsespoolen, slik at API-et og de andre jobbene ikke sultes ut.
+ * Reservasjonstiden må være lengre enn det en arkivering kan ta, inkludert nye forsøk mot bidrag-dokument.
+ */
+data class Arkivering(
+    var samtidighetLaste: Int = 3,
+    var samtidighetBerike: Int = 16,
+    var samtidighetGenerere: Int = 4,
+    var samtidighetJournalfoere: Int = 8,
+    var samtidighetLagre: Int = 3,
+    var bestillingerPerRunde: Int = 50,
+    var reservasjonstid: Duration = Duration.ofMinutes(15),
+    var maksAntallForsoek: Int = 5
+)
+
+/**
+ * Skedulerte jobber deler arbeidsmengden i partisjoner som leies av instansene, og henter arbeid i sider på inntil sidestørrelse elementer,
+ * sortert på id. Antall partisjoner bør være flere enn antall instanser. Leien fornyes for hver side, og må derfor vare lenger enn det tar å
+ * behandle en side. Maks kjøretid gjelder hele den planlagte kjøringen, også når den består av flere jobber. Deretter stopper kjøringen og
+ * fortsetter fra sjekkpunktet i partisjonene ved neste kjøring.
+ */
+data class Bolkjobb(
+    var sidestoerrelse: Int = 500,
+    var maksKjoeretid: Duration = Duration.ofMinutes(12),
+    var antallPartisjoner: Int = 16,
+    var leietid: Duration = Duration.ofMinutes(3)
+)
+
+/**
+ * Bolkstørrelsen angir hvor mange personer som anonymiseres eller slettes per transaksjon.
+ */
+data class Anonymisering(
+    var bolkstoerrelse: Int = 500
+)
 
+/**
+ * Elementer i person- og familiecachen utløper tilfeldig fordelt over spredningen før klokken 06:00. Elementer som leses innenfor
+ * forfriskingsvinduet før de utløper hentes på nytt i bakgrunnen. Maksvekten er anslått minnebruk per cache; de minst brukte elementene
+ * fjernes når den overskrides. Forvarmingen omfatter personer i aktive forespørsler opprettet innenfor forvarmingsperioden, og inntil maks
+ * antall forvarmet personer per instans.
+ */
+data class Personcache(
+    var spredning: Duration = Duration.ofHours(1),
+    var forfriskingsvindu: Duration = Duration.ofHours(1),
+    var maksvektPerson: DataSize = DataSize.ofMegabytes(32),
+    var maksvektFamilie: DataSize = DataSize.ofMegabytes(64),
+    var forvarmingsperiode: Duration = Duration.ofDays(14),
+    var maksAntallForvarmet: Int = 5000
+)
+
+/**
+ * Bolkoppslag angir om personinfo for flere personer skal hentes med ett kall mot bolkendepunktet i bidrag-person. Skrus det av, hentes
+ * personinfo med parallelle enkeltkall.
+ */
+data class Personoppslag(
+    var bolkoppslag: Boolean = true
+)
+
+/**
+ * Hver tjeneste har sitt eget tilkoblingsbasseng, slik at trege svar fra én tjeneste ikke tar tilkoblinger fra en annen.
+ */
+data class Httpklient(
+    var bidragPerson: Tilkoblingsbasseng = Tilkoblingsbasseng(),
+    var bidragDokument: Tilkoblingsbasseng = Tilkoblingsbasseng(tidsavbruddLesing = Duration.ofSeconds(60))
+)
+
+/**
+ * Tidsavbrudd for leie angir hvor lenge et kall venter på ledig tilkobling når bassenget er fullt. Ledige tilkoblinger lukkes etter maks
+ * ledig tid, og alle tilkoblinger fornyes etter levetiden.
+ */
+data class Tilkoblingsbasseng(
+    var maksTilkoblinger: Int = 50,
+    var tidsavbruddTilkobling: Duration = Duration.ofSeconds(2),
+    var tidsavbruddLesing: Duration = Duration.ofSeconds(10),
+    var tidsavbruddLeie: Duration = Duration.ofSeconds(2),
+    var maksLedigTid: Duration = Duration.ofSeconds(30),
+    var levetid: Duration = Duration.ofMinutes(5)
+)
@@ -1,8 +1,18 @@
 package no.nav.bidrag.reisekostnad.konfigurasjon;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.ObservationExecChainHandler;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import io.micrometer.observation.ObservationRegistry;
 import no.nav.bidrag.commons.security.service.SecurityTokenService;
 import no.nav.bidrag.commons.web.CorrelationIdFilter;
 import no.nav.bidrag.commons.web.HttpHeaderRestTemplate;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RootUriTemplateHandler;
@@ -37,10 +47,22 @@ public class RestTemplatekonfig {
   @Bean
   @Scope("prototype")
   public HttpHeaderRestTemplate httpHeaderRestTemplate() {
-    HttpHeaderRestTemplate httpHeaderRestTemplate = new HttpHeaderRestTemplate(new HttpComponentsClientHttpRequestFactory());
-    httpHeaderRestTemplate.addHeaderGenerator(CorrelationIdFilter.CORRELATION_ID_HEADER, CorrelationIdFilter::fetchCorrelationIdForThread);
+    return oppretteRestTemplate(new HttpComponentsClientHttpRequestFactory());
+  }
 
-    return httpHeaderRestTemplate;
+  /**
+   * Tilkoblingsbassenget deles av alle RestTemplate-instansene mot samme tjeneste.
+   */
+  @Bean
+  public HttpComponentsClientHttpRequestFactory bidragDokumentForespørselsfabrikk(Egenskaper egenskaper, MeterRegistry meterRegistry,
+      ObservationRegistry observationRegistry) {
+    return oppretteForespørselsfabrikk("bidrag-dokument", egenskaper.getHttpklient().getBidragDokument(), meterRegistry, observationRegistry);
+  }
+
+  @Bean
+  public HttpComponentsClientHttpRequestFactory bidragPersonForespørselsfabrikk(Egenskaper egenskaper, MeterRegistry meterRegistry,
+      ObservationRegistry observationRegistry) {
+    return oppretteForespørselsfabrikk("bidrag-person", egenskaper.getHttpklient().getBidragPerson(), meterRegistry, observationRegistry);
   }
 
   @Bean
@@ -48,9 +70,10 @@ public class RestTemplatekonfig {
   @Qualifier("bidrag-dokument-azure-client-credentials")
   public HttpHeaderRestTemplate bidragDokumentAzureCCRestTemplate(
       @Value("${integrasjon.bidrag.dokument.url}") String urlBidragPerson,
-      HttpHeaderRestTemplate httpHeaderRestTemplate,
+      @Qualifier("bidragDokumentForespørselsfabrikk") HttpComponentsClientHttpRequestFactory forespørselsfabrikk,
       ClientHttpRequestInterceptor bidragDokumentClientCredentialsTokenInterceptor
   ) {
+    var httpHeaderRestTemplate = oppretteRestTemplate(forespørselsfabrikk);
     httpHeaderRestTemplate.getInterceptors().add(bidragDokumentClientCredentialsTokenInterceptor);
     httpHeaderRestTemplate.setUriTemplateHandler(new RootUriTemplateHandler(urlBidragPerson));
     return httpHeaderRestTemplate;
@@ -61,11 +84,49 @@ public class RestTemplatekonfig {
   @Qualifier("bidrag-person-azure-client-credentials")
   public HttpHeaderRestTemplate bidragPersonAzureCCRestTemplate(
       @Value("${integrasjon.bidrag.person.url}") String urlBidragPerson,
-      HttpHeaderRestTemplate httpHeaderRestTemplate,
+      @Qualifier("bidragPersonForespørselsfabrikk") HttpComponentsClientHttpRequestFactory forespørselsfabrikk,
       ClientHttpRequestInterceptor bidragPersonClientCredentialsTokenInterceptor
   ) {
+    var httpHeaderRestTemplate = oppretteRestTemplate(forespørselsfabrikk);
     httpHeaderRestTemplate.getInterceptors().add(bidragPersonClientCredentialsTokenInterceptor);
     httpHeaderRestTemplate.setUriTemplateHandler(new RootUriTemplateHandler(urlBidragPerson));
     return httpHeaderRestTemplate;
   }
+
+  private static HttpHeaderRestTemplate oppretteRestTemplate(HttpComponentsClientHttpRequestFactory forespørselsfabrikk) {
+    HttpHeaderRestTemplate httpHeaderRestTemplate = new HttpHeaderRestTemplate(forespørselsfabrikk);
+    httpHeaderRestTemplate.addHeaderGenerator(CorrelationIdFilter.CORRELATION_ID_HEADER, CorrelationIdFilter::fetchCorrelationIdForThread);
+
+    return httpHeaderRestTemplate;
+  }
+
+  /**
+   * Bassenget eksponeres som httpcomponents_httpclient_pool_* med tag httpclient, og kalltid som httpcomponents_httpclient_request med
+   * histogram.
+   */
+  private static HttpComponentsClientHttpRequestFactory oppretteForespørselsfabrikk(String tjeneste, Tilkoblingsbasseng basseng,
+      MeterRegistry meterRegistry, ObservationRegistry observationRegistry) {
+    var tilkoblingsbehandler = PoolingHttpClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(basseng.getMaksTilkoblinger())
+        .setMaxConnPerRoute(basseng.getMaksTilkoblinger())
+        .setDefaultConnectionConfig(ConnectionConfig.custom()
+            .setConnectTimeout(Timeout.of(basseng.getTidsavbruddTilkobling()))
+            .setSocketTimeout(Timeout.of(basseng.getTidsavbruddLesing()))
+            .setTimeToLive(TimeValue.of(basseng.getLevetid()))
+            .build())
+        .build();
+    new PoolingHttpClientConnectionManagerMetricsBinder(tilkoblingsbehandler, tjeneste).bindTo(meterRegistry);
+
+    var httpklient = HttpClients.custom()
+        .setConnectionManager(tilkoblingsbehandler)
+        .setDefaultRequestConfig(RequestConfig.custom()
+            .setConnectionRequestTimeout(Timeout.of(basseng.getTidsavbruddLeie()))
+            .setResponseTimeout(Timeout.of(basseng.getTidsavbruddLesing()))
+            .build())
+        .addExecInterceptorLast("micrometer", new ObservationExecChainHandler(observationRegistry))
+        .evictIdleConnections(TimeValue.of(basseng.getMaksLedigTid()))
+        .build();
+
+    return new HttpComponentsClientHttpRequestFactory(httpklient);
+  }
 }
@@ -3,26 +3,29 @@ package no.nav.bidrag.reisekostnad.konfigurasjon.cache
 import com.github.benmanes.caffeine.cache.Expiry
 import java.time.Duration
 import java.time.LocalDateTime
-import java.time.ZoneId
-import java.time.ZoneOffset
-import java.util.concurrent.TimeUnit
+import java.util.concurrent.ThreadLocalRandom
 
-class CacheEvictBeforeWorkingHours: Expiry<Any, Any>{
+/**
+ * Lar elementer utløpe før arbeidstid neste dag. Utløpet spres tilfeldig over spredningen før klokken 06:00, slik at ikke alle elementer
+ * utløper samtidig. Elementer som oppdateres får nytt utløp.
+ */
+class CacheEvictBeforeWorkingHours(private val spredning: Duration = Duration.ZERO) : Expiry<Any, Any> {
     override fun expireAfterCreate(p0: Any, p1: Any, currentTime: Long): Long {
         val expireAt = LocalDateTime.now()
             .plusDays(1)
             .withHour(6)
             .withMinute(0)
             .withSecond(0)
+            .minusNanos(if (spredning.isZero || spredning.isNegative) 0 else ThreadLocalRandom.current().nextLong(spredning.toNanos()))
 
         return Duration.between(LocalDateTime.now(), expireAt).toNanos()
     }
 
     override fun expireAfterUpdate(o1: Any, o2: Any, currentTime: Long, currentDuration: Long): Long {
-        return currentDuration
+        return expireAfterCreate(o1, o2, currentTime)
     }
 
     override fun expireAfterRead(p0: Any, p1: Any, currentTime: Long, currentDuration: Long): Long {
         return currentDuration
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,41 @@
+package no.nav.bidrag.reisekostnad.konfigurasjon.cache
+
+import com.github.benmanes.caffeine.cache.Weigher
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Familiemedlem
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentFamilieRespons
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentPersoninfoRespons
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.MotpartBarnRelasjon
+import java.time.LocalDate
+
+private const val OBJEKT = 16
+private const val REFERANSE = 4
+private const val LISTE = 40
+private const val STRENG = 40
+private const val DATO = 24
+
+/**
+ * Anslår antall byte et element i person- eller familiecachen bruker, inkludert nøkkelen. Anslaget er grovt, men vokser med antall
+ * familiemedlemmer og lengden på navn, slik at cachens maksvekt tilsvarer omtrentlig minnebruk.
+ */
+class Cachevekter : Weigher<Any, Any> {
+    override fun weigh(key: Any, value: Any): Int {
+        return OBJEKT + vekt(key) + vekt(value)
+    }
+
+    private fun vekt(verdi: Any?): Int = when (verdi) {
+        null -> 0
+        is String -> STRENG + verdi.length
+        is LocalDate -> DATO
+        is UserCacheKey -> OBJEKT + vekt(verdi.userId) + vekt(verdi.key)
+        is HentPersoninfoRespons -> OBJEKT + vekt(verdi.fornavn) + vekt(verdi.kortnavn) + vekt(verdi.foedselsdato)
+        is HentFamilieRespons -> OBJEKT + vekt(verdi.person) + liste(verdi.personensMotpartBarnRelasjon)
+        is MotpartBarnRelasjon -> OBJEKT + vekt(verdi.motpart) + liste(verdi.fellesBarn)
+        is Familiemedlem -> OBJEKT + vekt(verdi.ident) + vekt(verdi.fornavn) + vekt(verdi.mellomnavn) + vekt(verdi.etternavn) +
+            vekt(verdi.diskresjonskode) + vekt(verdi.foedselsdato) + vekt(verdi.doedsdato)
+        else -> OBJEKT
+    }
+
+    private fun liste(elementer: List<*>?): Int {
+        return if (elementer == null) 0 else LISTE + elementer.sumOf { REFERANSE + vekt(it) }
+    }
+}
@@ -0,0 +1,67 @@
+package no.nav.bidrag.reisekostnad.konfigurasjon.cache
+
+import com.github.benmanes.caffeine.cache.Cache
+import mu.KotlinLogging
+import org.springframework.cache.caffeine.CaffeineCache
+import org.springframework.util.ObjectUtils
+import java.time.Duration
+import java.util.concurrent.CompletableFuture
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.Executor
+
+private val log = KotlinLogging.logger {}
+
+/**
+ * Cache som henter elementer på nytt i bakgrunnen når de leses kort tid før de utløper. Gammel verdi returneres mens ny verdi hentes, og
+ * hvert element hentes bare én gang om gangen. Innhentingen får personidenten fra cachenøkkelen, som enten er personidenten selv eller en
+ * UserCacheKey med personidenten som nøkkel.
+ */
+class ForfriskendeCache(
+    name: String,
+    private val caffeineCache: Cache<Any, Any>,
+    private val innhenting: (String) -> Any?,
+    private val forfriskingsvindu: Duration,
+    private val utfører: Executor
+) : CaffeineCache(name, caffeineCache, true) {
+
+    private val pågåendeForfriskinger = ConcurrentHashMap.newKeySet<Any>()
+
+    override fun lookup(key: Any): Any? {
+        val verdi = super.lookup(key)
+        if (verdi != null && utløperSnart(key)) forfriske(key)
+        return verdi
+    }
+
+    /**
+     * Henter verdien for personidenten én gang, og legger den i cachen under hver av nøklene uavhengig av om den finnes fra før.
+     */
+    fun forvarme(personident: String, nøkler: Collection<Any>) {
+        val verdi = innhenting(personident)
+        nøkler.forEach { lagre(it, verdi) }
+    }
+
+    /**
+     * Lagrer verdien på samme form som @Cacheable, som pakker ut Optional. Tomme svar lagres ikke, slik at en eksisterende verdi beholdes.
+     */
+    private fun lagre(key: Any, verdi: Any?) {
+        ObjectUtils.unwrapOptional(verdi)?.let { put(key, it) }
+    }
+
+    private fun utløperSnart(key: Any): Boolean {
+        return caffeineCache.policy().expireVariably()
+            .flatMap { it.getExpiresAfter(key) }
+            .map { it <= forfriskingsvindu }
+            .orElse(false)
+    }
+
+    private fun forfriske(key: Any) {
+        val personident = (if (key is UserCacheKey) key.key else key) as? String ?: return
+        if (!pågåendeForfriskinger.add(key)) return
+
+        CompletableFuture.runAsync({ lagre(key, innhenting(personident)) }, utfører)
+            .whenComplete { _, feil ->
+                pågåendeForfriskinger.remove(key)
+                if (feil != null) log.warn("Forfrisking av element i $name feilet. Gammel verdi brukes til den utløper.", feil)
+            }
+    }
+}
@@ -2,7 +2,7 @@ package no.nav.bidrag.reisekostnad.konfigurasjon.cache
 
 import org.apache.commons.lang3.builder.HashCodeBuilder
 
-class UserCacheKey(private val userId: String, private val key: Any) {
+class UserCacheKey(val userId: String, val key: Any) {
     override fun equals(other: Any?): Boolean {
         if (other is UserCacheKey) {
             return userId == other.userId && key == other.key
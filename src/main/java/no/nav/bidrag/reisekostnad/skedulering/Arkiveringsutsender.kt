@@ -0,0 +1,46 @@
+package no.nav.bidrag.reisekostnad.skedulering
+
+import mu.KotlinLogging
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
+import no.nav.bidrag.reisekostnad.tjeneste.Arkiveringspipeline
+import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste
+import org.springframework.scheduling.annotation.Scheduled
+import org.springframework.stereotype.Component
+
+private val log = KotlinLogging.logger {}
+
+/**
+ * Sender bestilte arkiveringer til dokumentarkivet. Bestillingene reserveres i korte transaksjoner, slik at ingen databaseforbindelse holdes
+ * mens dokumentet produseres og sendes. Flere instanser kan kjøre samtidig, siden hver bestilling bare reserveres av én av dem.
+ */
+@Component
+class Arkiveringsutsender(
+    private val arkiveringspipeline: Arkiveringspipeline,
+    private val databasetjeneste: Databasetjeneste,
+    private val egenskaper: Egenskaper
+) {
+    @Scheduled(cron = "\${kjøreplan.databehandling.arkiveringsbestillinger}")
+    fun sendeBestilteArkiveringer() {
+        sende()
+    }
+
+    /**
+     * Sender bestillinger til det ikke er flere ledige. Returnerer antall forespørsler som ble arkivert.
+     */
+    fun sende(): Int {
+        val arkivering = egenskaper.arkivering
+        var antallArkivert = 0
+        var antallReservert = 0
+
+        do {
+            val idForespørsler = databasetjeneste.reservereArkiveringsbestillinger(
+                arkivering.bestillingerPerRunde, arkivering.reservasjonstid, arkivering.maksAntallForsoek
+            )
+            antallReservert += idForespørsler.size
+            antallArkivert += arkiveringspipeline.arkivere(idForespørsler)
+        } while (idForespørsler.size == arkivering.bestillingerPerRunde)
+
+        if (antallReservert > 0) log.info("Arkiverte $antallArkivert av $antallReservert bestilte forespørsler")
+        return antallArkivert
+    }
+}
@@ -0,0 +1,244 @@
+package no.nav.bidrag.reisekostnad.skedulering
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Timer
+import mu.KotlinLogging
+import net.javacrumbs.shedlock.support.Utils.getHostname
+import no.nav.bidrag.reisekostnad.database.dao.JobbpartisjonDao
+import no.nav.bidrag.reisekostnad.database.datamodell.Jobbpartisjon
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
+import org.springframework.core.env.Environment
+import org.springframework.dao.DataIntegrityViolationException
+import org.springframework.data.domain.PageRequest
+import org.springframework.data.domain.Pageable
+import org.springframework.scheduling.annotation.Scheduled
+import org.springframework.scheduling.support.CronExpression
+import org.springframework.stereotype.Component
+import org.springframework.transaction.support.TransactionTemplate
+import java.time.Duration
+import java.time.LocalDateTime
+import java.util.UUID
+import java.util.concurrent.ConcurrentHashMap
+
+private val log = KotlinLogging.logger {}
+
+/**
+ * Kjører en skedulert jobb i alle instansene samtidig. Arbeidsmengden deles i partisjoner etter id, og hver instans leier ledige partisjoner
+ * med FOR UPDATE SKIP LOCKED til alle er fullført. Innenfor en partisjon hentes arbeidet i sider sortert på id, og etter hver side lagres
+ * siste id og leien fornyes. Stopper en instans, utløper leien, og partisjonen tas over av en instans som kjører jobben. Når fristen til
+ * kjøringen er nådd frigis partisjonen, og neste kjøring fortsetter etter siste id. Er alle gjenstående partisjoner leid av andre instanser,
+ * avslutter instansen i stedet for å vente.
+ *
+ * En runde er ferdig når alle partisjonene er fullført. Runden knyttes til den planlagte kjøringen etter kjøreplanen som startet den, og en
+ * ny runde startes først ved en senere planlagt kjøring. En instans som starter sent innenfor samme planlagte kjøring, kjører dermed ikke jobben
+ * på nytt. Hvert element behandles i egen transaksjon, slik at en feil ikke ruller tilbake resten av siden.
+ *
+ * Hver kjøring leier partisjoner med egen eier, slik at to kjøringer i samme instans ikke kan fornye eller frigi hverandres leie. En jobb
+ * kjøres bare én gang om gangen i hver instans.
+ */
+@Component
+class Bolkkjører(
+    private val jobbpartisjonDao: JobbpartisjonDao,
+    private val egenskaper: Egenskaper,
+    private val meterRegistry: MeterRegistry,
+    private val transactionTemplate: TransactionTemplate,
+    private val environment: Environment
+) {
+    private val pågåendeJobber = ConcurrentHashMap.newKeySet<String>()
+
+    /**
+     * Starter en planlagt kjøring etter kjøreplanen, som er navnet på egenskapen med cron-uttrykket jobbene er skedulert etter. Alle jobbene
+     * i samme skedulerte metode kjøres med samme [Kjøring].
+     */
+    fun nyKjøring(kjøreplan: String): Kjøring {
+        val nå = LocalDateTime.now()
+        return Kjøring(henteCron(kjøreplan)?.let { forrigePlanlagteKjøring(it, nå) } ?: nå, nå.plus(egenskaper.bolkjobb.maksKjoeretid))
+    }
+
+    /**
+     * Henter sider med [hente] og kaller [behandle] for hvert element. Returnerer antall elementer som ble behandlet av denne instansen.
+     */
+    fun <T> kjøre(
+        kjøring: Kjøring,
+        jobb: String,
+        hente: (etterId: Int, partisjon: Int, antallPartisjoner: Int, side: Pageable) -> List<T>,
+        id: (T) -> Int,
+        behandle: (T) -> Unit
+    ): Int = kjøreSider(kjøring, jobb, hente, id) { side -> side.forEach(behandle) }
+
+    /**
+     * Henter sider med [hente] og kaller [behandle] for hver side som ikke er tom. Returnerer antall elementer som ble behandlet av denne
+     * instansen.
+     */
+    fun <T> kjøreSider(
+        kjøring: Kjøring,
+        jobb: String,
+        hente: (etterId: Int, partisjon: Int, antallPartisjoner: Int, side: Pageable) -> List<T>,
+        id: (T) -> Int,
+        sidestørrelse: Int = egenskaper.bolkjobb.sidestoerrelse,
+        behandle: (List<T>) -> Unit
+    ): Int {
+        if (!pågåendeJobber.add(jobb)) {
+            log.info("Jobben $jobb kjører allerede i denne instansen, og kjøringen hoppes over")
+            return 0
+        }
+        try {
+            return kjørePartisjoner(kjøring, jobb, "${getHostname()}-${UUID.randomUUID()}", hente, id, sidestørrelse, behandle)
+        } finally {
+            pågåendeJobber.remove(jobb)
+        }
+    }
+
+    private fun <T> kjørePartisjoner(
+        kjøring: Kjøring,
+        jobb: String,
+        eier: String,
+        hente: (etterId: Int, partisjon: Int, antallPartisjoner: Int, side: Pageable) -> List<T>,
+        id: (T) -> Int,
+        sidestørrelse: Int,
+        behandle: (List<T>) -> Unit
+    ): Int {
+        val antallPartisjoner = egenskaper.bolkjobb.antallPartisjoner
+        val frist = kjøring.frist
+        forberedeRunde(jobb, antallPartisjoner, kjøring.planlagt)
+
+        var antallBehandlet = 0
+        while (LocalDateTime.now().isBefore(frist)) {
+            // Partisjonene som gjenstår er fullført eller leid av andre instanser, som fullfører dem eller frigir dem ved fristen.
+            val partisjon = leiePartisjon(jobb, eier) ?: break
+            antallBehandlet += behandlePartisjon(jobb, eier, partisjon, antallPartisjoner, sidestørrelse, frist, hente, id, behandle)
+        }
+
+        if (LocalDateTime.now().isAfter(frist)) {
+            log.info("Jobben $jobb nådde maks kjøretid etter $antallBehandlet elementer, og fortsetter fra sjekkpunktene ved neste kjøring")
+        }
+        return antallBehandlet
+    }
+
+    private fun <T> behandlePartisjon(
+        jobb: String,
+        eier: String,
+        partisjon: Jobbpartisjon,
+        antallPartisjoner: Int,
+        sidestørrelse: Int,
+        frist: LocalDateTime,
+        hente: (etterId: Int, partisjon: Int, antallPartisjoner: Int, side: Pageable) -> List<T>,
+        id: (T) -> Int,
+        behandle: (List<T>) -> Unit
+    ): Int {
+        var sisteId = partisjon.sisteId
+        if (sisteId > 0) log.info("Jobben $jobb fortsetter etter id $sisteId i partisjon ${partisjon.partisjon}")
+
+        var antallBehandlet = 0
+        var fullført = false
+        try {
+            do {
+                if (LocalDateTime.now().isAfter(frist)) return antallBehandlet
+
+                val måling = Timer.start(meterRegistry)
+                val side = hente(sisteId, partisjon.partisjon, antallPartisjoner, PageRequest.ofSize(sidestørrelse))
+                if (side.isNotEmpty()) {
+                    behandle(side)
+                    sisteId = id(side.last())
+                }
+                antallBehandlet += side.size
+                måling.stop(Timer.builder("reisekostnad_bolkjobb_side")
+                    .tag("jobb", jobb)
+                    .description("Tidsbruk per side i skedulerte jobber")
+                    .register(meterRegistry))
+
+                if (!fornyeLeie(jobb, partisjon.partisjon, eier, sisteId)) {
+                    log.warn("Jobben $jobb mistet leien på partisjon ${partisjon.partisjon} etter id $sisteId, og partisjonen er tatt over av en annen instans")
+                    return antallBehandlet
+                }
+            } while (side.size == sidestørrelse)
+
+            transactionTemplate.executeWithoutResult { jobbpartisjonDao.fullføre(jobb, partisjon.partisjon, eier, LocalDateTime.now()) }
+            fullført = true
+            return antallBehandlet
+        } finally {
+            if (!fullført) transactionTemplate.executeWithoutResult { jobbpartisjonDao.frigi(jobb, partisjon.partisjon, eier) }
+        }
+    }
+
+    /**
+     * Oppretter partisjonene som mangler, og fjerner partisjoner utover antall partisjoner. Er alle partisjonene fullført, og runden ble startet
+     * av en tidligere planlagt kjøring, er forrige runde ferdig, og en ny runde startes.
+     */
+    private fun forberedeRunde(jobb: String, antallPartisjoner: Int, planlagt: LocalDateTime) {
+        try {
+            transactionTemplate.executeWithoutResult {
+                val partisjoner = jobbpartisjonDao.låsePartisjoner(jobb)
+                jobbpartisjonDao.deleteAll(partisjoner.filter { it.partisjon >= antallPartisjoner })
+
+                val eksisterende = partisjoner.map { it.partisjon }.toSet()
+                jobbpartisjonDao.saveAll((0 until antallPartisjoner).filter { it !in eksisterende }
+                    .map { Jobbpartisjon.builder().jobb(jobb).partisjon(it).rundeStartet(planlagt).build() })
+
+                val gjeldende = partisjoner.filter { it.partisjon < antallPartisjoner }
+                val rundenErFerdig = gjeldende.isNotEmpty() && gjeldende.all { it.fullført != null }
+                val rundenErStartetTidligere = gjeldende.all { it.rundeStartet == null || it.rundeStartet < planlagt }
+                if (rundenErFerdig && rundenErStartetTidligere) {
+                    log.info("Jobben $jobb starter en ny runde over $antallPartisjoner partisjoner for planlagt kjøring $planlagt")
+                    gjeldende.forEach {
+                        it.fullført = null
+                        it.rundeStartet = planlagt
+                    }
+                }
+            }
+        } catch (e: DataIntegrityViolationException) {
+            log.info("Partisjonene til jobben $jobb ble opprettet av en annen instans")
+        }
+    }
+
+    /**
+     * Kjøreplaner som ikke er satt, eller er skrudd av, gir ingen planlagte kjøringer. Hver kjøring regnes da som en egen planlagt kjøring.
+     */
+    private fun henteCron(kjøreplan: String): CronExpression? {
+        val cron = try {
+            environment.getProperty(kjøreplan)
+        } catch (e: IllegalArgumentException) {
+            null
+        }
+        if (cron == null || cron == Scheduled.CRON_DISABLED || !CronExpression.isValidExpression(cron)) return null
+        return CronExpression.parse(cron)
+    }
+
+    private fun leiePartisjon(jobb: String, eier: String): Jobbpartisjon? = transactionTemplate.execute {
+        val nå = LocalDateTime.now()
+        jobbpartisjonDao.låseLedigePartisjoner(jobb, nå, PageRequest.of(0, 1)).firstOrNull()?.also {
+            it.eier = eier
+            it.leidTil = nå.plus(egenskaper.bolkjobb.leietid)
+        }
+    }
+
+    private fun fornyeLeie(jobb: String, partisjon: Int, eier: String, sisteId: Int): Boolean = transactionTemplate.execute {
+        jobbpartisjonDao.fornyeLeie(jobb, partisjon, eier, sisteId, LocalDateTime.now().plus(egenskaper.bolkjobb.leietid)) == 1
+    } ?: false
+}
+
+/**
+ * Finner siste planlagte kjøring etter kjøreplanen som ikke er senere enn [nå]. Søkevinduet bakover dobles til det inneholder en planlagt
+ * kjøring. Returnerer null dersom kjøreplanen ikke har noen kjøring det siste året.
+ */
+internal fun forrigePlanlagteKjøring(kjøreplan: CronExpression, nå: LocalDateTime): LocalDateTime? {
+    var vindu = Duration.ofMinutes(1)
+    while (vindu <= Duration.ofDays(366)) {
+        var planlagt = kjøreplan.next(nå.minus(vindu))
+        if (planlagt != null && !planlagt.isAfter(nå)) {
+            var neste = kjøreplan.next(planlagt)
+            while (neste != null && !neste.isAfter(nå)) {
+                planlagt = neste
+                neste = kjøreplan.next(neste)
+            }
+            return planlagt
+        }
+        vindu = vindu.multipliedBy(2)
+    }
+    return null
+}
+
+/**
+ * En planlagt kjøring av en eller flere jobber. Jobbene deler fristen, slik at kjøringen samlet ikke varer lenger enn maks kjøretid.
+ */
+data class Kjøring(val planlagt: LocalDateTime, val frist: LocalDateTime)
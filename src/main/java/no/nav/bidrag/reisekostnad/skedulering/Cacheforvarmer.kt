@@ -0,0 +1,80 @@
+package no.nav.bidrag.reisekostnad.skedulering
+
+import mu.KotlinLogging
+import no.nav.bidrag.reisekostnad.konfigurasjon.Cachekonfig.CACHE_FAMILIE
+import no.nav.bidrag.reisekostnad.konfigurasjon.Cachekonfig.CACHE_PERSON
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
+import no.nav.bidrag.reisekostnad.konfigurasjon.Profil
+import no.nav.bidrag.reisekostnad.konfigurasjon.cache.ForfriskendeCache
+import no.nav.bidrag.reisekostnad.konfigurasjon.cache.UserCacheKey
+import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste
+import org.springframework.cache.CacheManager
+import org.springframework.context.annotation.Profile
+import org.springframework.scheduling.annotation.Scheduled
+import org.springframework.stereotype.Component
+import java.time.LocalDateTime
+
+private val log = KotlinLogging.logger {}
+
+private const val SIDESTØRRELSE = 500
+
+/**
+ * Fyller person- og familiecachen for personer i aktive forespørsler opprettet innenfor forvarmingsperioden før arbeidstid. Cachen er lokal,
+ * så jobben kjøres i hver instans og bruker derfor verken SchedulerLock eller [Bolkkjører]. Forespørslene hentes i sider etter id, og hver
+ * instans forvarmer maks antall personer angitt i egenskapene. Resten hentes ved første oppslag.
+ */
+@Component
+@Profile(Profil.I_SKY)
+class Cacheforvarmer(
+    private val cacheManager: CacheManager,
+    private val databasetjeneste: Databasetjeneste,
+    private val egenskaper: Egenskaper
+) {
+    @Scheduled(cron = "\${kjøreplan.databehandling.forvarme_cache}")
+    fun forvarme() {
+        val familiecache = cacheManager.getCache(CACHE_FAMILIE) as? ForfriskendeCache ?: return
+        val personcache = cacheManager.getCache(CACHE_PERSON) as? ForfriskendeCache ?: return
+
+        val personcacheegenskaper = egenskaper.personcache
+        val opprettetEtter = LocalDateTime.now().minus(personcacheegenskaper.forvarmingsperiode)
+        val foreldre = HashSet<String>()
+        val identer = HashSet<String>()
+        var antallFeilet = 0
+        var antallHoppetOver = 0
+
+        var sisteId = 0
+        do {
+            val side = databasetjeneste.henteAktiveForespørslerOpprettetEtter(opprettetEtter, sisteId, SIDESTØRRELSE)
+            side.forEach { forespørsel ->
+                val foreldreIForespørsel = listOfNotNull(forespørsel.hovedpart?.personident, forespørsel.motpart?.personident)
+                val identerIForespørsel = foreldreIForespørsel + forespørsel.barn.mapNotNull { it.personident }
+
+                if (identer.size >= personcacheegenskaper.maksAntallForvarmet) {
+                    antallHoppetOver += identerIForespørsel.count { it !in identer }
+                    return@forEach
+                }
+
+                foreldreIForespørsel.filter { foreldre.add(it) }.forEach { forelder ->
+                    try {
+                        familiecache.forvarme(forelder, listOf(UserCacheKey(forelder, forelder)))
+                    } catch (e: Exception) {
+                        antallFeilet++
+                    }
+                }
+                identerIForespørsel.filter { identer.add(it) }.forEach { ident ->
+                    try {
+                        personcache.forvarme(ident, listOf(ident))
+                    } catch (e: Exception) {
+                        antallFeilet++
+                    }
+                }
+            }
+            sisteId = side.lastOrNull()?.id ?: sisteId
+        } while (side.size == SIDESTØRRELSE)
+
+        log.info(
+            "Forvarmet cache for ${foreldre.size} foreldre og ${identer.size} personer i aktive forespørsler. " +
+                "$antallFeilet innhentinger feilet, og $antallHoppetOver personer ble hoppet over fordi maks antall var nådd."
+        )
+    }
+}
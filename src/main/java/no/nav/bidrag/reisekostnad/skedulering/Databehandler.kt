@@ -4,10 +4,10 @@ import mu.KotlinLogging
 import net.javacrumbs.shedlock.spring.annotation.SchedulerLock
 import no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon.Brukernotifikasjonkonsument
 import no.nav.bidrag.reisekostnad.konfigurasjon.Applikasjonskonfig.FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
 import no.nav.bidrag.reisekostnad.model.alleBarnHarFylt15år
 import no.nav.bidrag.reisekostnad.model.hovedpartIdent
 import no.nav.bidrag.reisekostnad.model.motpartIdent
-import no.nav.bidrag.reisekostnad.tjeneste.Arkiveringstjeneste
 import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste
 import org.springframework.scheduling.annotation.Scheduled
 import org.springframework.stereotype.Component
@@ -16,35 +16,44 @@ import java.time.LocalDateTime
 
 private val log = KotlinLogging.logger {}
 
+private const val KJØREPLAN_FYLT_15 = "kjøreplan.databehandling.fylt_15"
+private const val KJØREPLAN_DEAKTIVERE = "kjøreplan.databehandling.deaktivere"
+private const val KJØREPLAN_ANONYMISERE = "kjøreplan.databehandling.anonymisere"
+
+/**
+ * Jobbene for barn som har fylt 15 år, deaktivering og anonymisering kjøres i alle instansene, som deler arbeidet mellom seg gjennom
+ * [Bolkkjører]. Jobbene i samme skedulerte metode deler én [Kjøring], og dermed fristen. Bestilling av arkivering er én spørring og kjøres
+ * bare i én instans, mens selve arkiveringen deles av [Arkiveringsutsender].
+ */
 @Component
 class Databehandler(
-    private val arkiveringstjeneste: Arkiveringstjeneste,
+    private val arkiveringsutsender: Arkiveringsutsender,
     private val brukernotifikasjonkonsument: Brukernotifikasjonkonsument,
-    private val databasetjeneste: Databasetjeneste
+    private val databasetjeneste: Databasetjeneste,
+    private val bolkkjører: Bolkkjører,
+    private val egenskaper: Egenskaper
 ) {
     @Scheduled(cron = "\${kjøreplan.databehandling.arkivere}")
     @SchedulerLock(name = "forespørsel_til_arkiv", lockAtLeastFor = "PT5M", lockAtMostFor = "PT14M")
     fun arkiverForespørslerSomErKlareForInnsending() {
-        val idForespørslerForInnsending = databasetjeneste.henteForespørslerSomErKlareForInnsending()
-        log.info("Fant totalt ${idForespørslerForInnsending.size} forespørsler som vil bli forsøkt oversendt til dokumentarkivet")
-        idForespørslerForInnsending.forEach {
-            arkiveringstjeneste.arkivereForespørsel(it)
-            log.info("Arkivering av forespørsel med id $it ble utført.")
-        }
-        log.info("Arkivering av alle de ${idForespørslerForInnsending.size} forespørslene er utført")
+        val antallKlareForInnsending = databasetjeneste.bestilleArkiveringAvForespørslerSomErKlareForInnsending()
+        log.info("Fant totalt $antallKlareForInnsending forespørsler som vil bli forsøkt oversendt til dokumentarkivet")
+        val antallArkivert = arkiveringsutsender.sende()
+        log.info("Arkivering av bestilte forespørsler er utført. $antallArkivert ble arkivert.")
     }
 
-    @Scheduled(cron = "\${kjøreplan.databehandling.fylt_15}")
-    @SchedulerLock(name = "forespørsel_barn_fylt_nylig_15år", lockAtLeastFor = "PT5M", lockAtMostFor = "PT14M")
+    @Scheduled(cron = "\${$KJØREPLAN_FYLT_15}")
     fun behandleForespørslerSomInneholderBarnSomHarNyligFylt15År() {
-        val forespørslerOver15År = databasetjeneste.hentForespørselSomInneholderBarnSomHarFylt15år()
-        log.info("Fant totalt ${forespørslerOver15År.size} forespørsler som inneholder barn som har nylig fylt 15 år")
-        forespørslerOver15År.forEach { originalForespørsel ->
+        val antallBehandlet = bolkkjører.kjøre(
+            bolkkjører.nyKjøring(KJØREPLAN_FYLT_15),
+            "forespørsel_barn_fylt_nylig_15år",
+            databasetjeneste::hentForespørselSomInneholderBarnSomHarFylt15år,
+            { it.id }
+        ) { originalForespørsel ->
             try {
                 val nyForespørsel =
                     if (originalForespørsel.alleBarnHarFylt15år) databasetjeneste.oppdaterForespørselTilÅIkkeKreveSamtykke(originalForespørsel.id)
                     else databasetjeneste.overførBarnSomHarFylt15årTilNyForespørsel(originalForespørsel.id)
-                arkiveringstjeneste.arkivereForespørsel(nyForespørsel.id)
                 log.info("Antall barn i forespørselen som nettopp har fylt 15 år: {}", nyForespørsel.barn.size)
                 brukernotifikasjonkonsument.varsleOmAutomatiskInnsending(
                     nyForespørsel.hovedpartIdent, nyForespørsel.motpartIdent, nyForespørsel.barn.stream().findFirst().get().fødselsdato
@@ -56,26 +65,26 @@ class Databehandler(
                 )
             }
         }
-        log.info("Behandlet alle forespørsler ${forespørslerOver15År.size} som inneholder barn som har nylig fylt 15 år")
+        log.info("Behandlet $antallBehandlet forespørsler som inneholder barn som har nylig fylt 15 år")
+        arkiveringsutsender.sende()
     }
 
-    @Scheduled(cron = "\${kjøreplan.databehandling.deaktivere}")
-    @SchedulerLock(name = "deaktivere", lockAtLeastFor = "PT5M", lockAtMostFor = "PT14M")
+    @Scheduled(cron = "\${$KJØREPLAN_DEAKTIVERE}")
     fun deaktivereJournalførteOgUtgåtteForespørsler() {
         log.info("Deaktivere journalførte og utgåtte forepørsler, varsle foreldre om utløpt samtykkefrist, og slette relaterte samtykkeoppgaver")
+        val kjøring = bolkkjører.nyKjøring(KJØREPLAN_DEAKTIVERE)
 
         // Deaktivere journalførte forespørsler
-        deaktivereJournalførteForespørsler()
+        deaktivereJournalførteForespørsler(kjøring)
 
         // Deaktivere forespørsler med utgått samtykkefrist, samt sende varsel til foreldre
-        deaktivereForespørslerMedUtgåttSamtykkefrist()
+        deaktivereForespørslerMedUtgåttSamtykkefrist(kjøring)
 
         // Aktive samtykkeoppgaver skal ferdigstilles dersom relatert forespørsel er deaktivert
-        ferdigstilleUtgåtteSamtykkeoppgaver()
+        ferdigstilleUtgåtteSamtykkeoppgaver(kjøring)
     }
 
-    @Scheduled(cron = "\${kjøreplan.databehandling.anonymisere}")
-    @SchedulerLock(name = "anonymisere", lockAtLeastFor = "PT5M", lockAtMostFor = "PT14M")
+    @Scheduled(cron = "\${$KJØREPLAN_ANONYMISERE}")
     fun anonymisereBarnOgSletteForeldreSomIkkeErKnyttetTilAktiveForespørsler() {
 
         log.info(
@@ -83,72 +92,85 @@ class Databehandler(
             FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING
         )
 
-        val antallBarnSomBleAnonymisert = databasetjeneste.anonymisereBarnUtenTilknytningTilAktiveForespørsler()
-        log.info("Anonymiserte totalt $antallBarnSomBleAnonymisert barn.")
+        val bolkstørrelse = egenskaper.anonymisering.bolkstoerrelse
+        val kjøring = bolkkjører.nyKjøring(KJØREPLAN_ANONYMISERE)
+
+        var antallBarnSomBleAnonymisert = 0
+        bolkkjører.kjøreSider(
+            kjøring, "anonymisere_barn", databasetjeneste::henteIdTilForespørslerMedBarnSomSkalAnonymiseres, { it }, bolkstørrelse
+        ) {
+            antallBarnSomBleAnonymisert += databasetjeneste.anonymisereBarn(it)
+        }
+        log.info("Anonymiserte $antallBarnSomBleAnonymisert barn i denne instansen.")
 
-        val antallForeldreSomBleSlettet = databasetjeneste.sletteForeldreUtenTilknytningTilAktiveForespørsler()
-        log.info("Slettet totalt $antallForeldreSomBleSlettet foreldre.")
+        var antallForeldreSomBleSlettet = 0
+        bolkkjører.kjøreSider(kjøring, "slette_foreldre", databasetjeneste::henteIdTilForeldreSomSkalSlettes, { it }, bolkstørrelse) {
+            antallForeldreSomBleSlettet += databasetjeneste.sletteForeldre(it)
+        }
+        log.info("Slettet $antallForeldreSomBleSlettet foreldre i denne instansen.")
     }
     
-    private fun ferdigstilleUtgåtteSamtykkeoppgaver() {
-        val oppgaverSomSkalFerdigstilles = databasetjeneste.henteOppgaverSomSkalFerdigstilles()
-        log.info("Fant ${oppgaverSomSkalFerdigstilles.size} aktive oppgaver som skal ferdigstilles.")
+    private fun ferdigstilleUtgåtteSamtykkeoppgaver(kjøring: Kjøring) {
         var antallFerdigstilteOppgaver = 0
-
-        oppgaverSomSkalFerdigstilles.forEach {
+        val antallOppgaver = bolkkjører.kjøre(
+            kjøring, "ferdigstille_samtykkeoppgaver", databasetjeneste::henteOppgaverSomSkalFerdigstilles, { it.id }
+        ) {
             val oppgaveBleFerdigstilt = brukernotifikasjonkonsument.ferdigstilleSamtykkeoppgave(it.eventId, it.forelder.personident)
             if (oppgaveBleFerdigstilt) antallFerdigstilteOppgaver++
         }
 
-        log.info("$antallFerdigstilteOppgaver av de ${oppgaverSomSkalFerdigstilles.size} identifiserte oppgavene ble ferdigstilt.")
+        log.info("$antallFerdigstilteOppgaver av de $antallOppgaver identifiserte oppgavene ble ferdigstilt.")
     }
 
-    private fun deaktivereJournalførteForespørsler() {
-        val journalførteAktiveForespørsler = databasetjeneste.henteIdTilAktiveForespørsler(
-            LocalDateTime.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING), true
-        )
-
-        log.info("Fant ${journalførteAktiveForespørsler.size} journalførte forespørsler som skal deaktiveres.")
-
-        journalførteAktiveForespørsler.forEach { id -> databasetjeneste.deaktivereForespørsel(id, null); }
-
-        if (journalførteAktiveForespørsler.size > 0) log.info("Alle de ${journalførteAktiveForespørsler.size} journalførte forespørslene ble deaktivert.")
+    private fun deaktivereJournalførteForespørsler(kjøring: Kjøring) {
+        val opprettetFør = LocalDateTime.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING)
+        val antallDeaktivert = bolkkjører.kjøre(
+            kjøring,
+            "deaktivere_journalførte",
+            { etterId, partisjon, antallPartisjoner, side ->
+                databasetjeneste.henteIdTilAktiveJournalførteForespørsler(opprettetFør, etterId, partisjon, antallPartisjoner, side)
+            },
+            { it }
+        ) { id -> databasetjeneste.deaktivereForespørsel(id, null) }
+
+        if (antallDeaktivert > 0) log.info("Alle de $antallDeaktivert journalførte forespørslene ble deaktivert.")
     }
 
-    private fun deaktivereForespørslerMedUtgåttSamtykkefrist() {
-        val iderTilAktiveForespørslerOpprettetForMinstXAntallDagerSiden = databasetjeneste.henteIdTilAktiveForespørsler(
-            LocalDate.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING).atStartOfDay(), false
-        )
-        log.info("Antall forespørsler med utgått samtykkefrist som vil bli forsøkt deaktivert: ${iderTilAktiveForespørslerOpprettetForMinstXAntallDagerSiden.size}.")
+    private fun deaktivereForespørslerMedUtgåttSamtykkefrist(kjøring: Kjøring) {
+        val opprettetFør = LocalDate.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING).atStartOfDay()
         var varselSendt = 0
-        iderTilAktiveForespørslerOpprettetForMinstXAntallDagerSiden.forEach { id ->
-            val forespørsel = databasetjeneste.henteAktivForespørsel(id)
-
+        var antallDeaktivert = 0
+        bolkkjører.kjøre(
+            kjøring,
+            "deaktivere_utgått_samtykkefrist",
+            { etterId, partisjon, antallPartisjoner, side ->
+                databasetjeneste.henteAktiveForespørslerOpprettetFør(opprettetFør, etterId, partisjon, antallPartisjoner, side)
+            },
+            { it.id }
+        ) { forespørsel ->
             val samtykketidspunkt = forespørsel.samtykket
-            if (forespørsel.journalført == null || samtykketidspunkt == null || LocalDate.now()
-                    .minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING).atStartOfDay().isAfter(samtykketidspunkt)
-            ) {
-                databasetjeneste.deaktivereForespørsel(id, null)
+            if (forespørsel.journalført == null || samtykketidspunkt == null || opprettetFør.isAfter(samtykketidspunkt)) {
+                databasetjeneste.deaktivereForespørsel(forespørsel.id, null)
+                antallDeaktivert++
                 try {
                     brukernotifikasjonkonsument.varsleForeldreOmManglendeSamtykke(
                         forespørsel.hovedpartIdent, forespørsel.motpartIdent, forespørsel.opprettet.toLocalDate()
                     )
                     varselSendt++
                 } catch (e: Exception) {
-                    e.printStackTrace()
-                    log.error("En feil oppstod ved varsling om manglende samtykke av forespørsel {}", forespørsel.id)
+                    log.error("En feil oppstod ved varsling om manglende samtykke av forespørsel {}", forespørsel.id, e)
                 }
             }
-            ferdiglogg(varselSendt, iderTilAktiveForespørslerOpprettetForMinstXAntallDagerSiden.size)
         }
+        ferdiglogg(varselSendt, antallDeaktivert)
     }
 
     private fun ferdiglogg(varselSendt: Int, antallVurderteForespørsler: Int) {
         val alleForeldreBleVarslet = varselSendt == antallVurderteForespørsler
         val loggStrengDeaktivert = "Alle de ${antallVurderteForespørsler} forespørslene med utgått samtykkefrist ble deaktivert."
         val loggstreng = if (alleForeldreBleVarslet) "$loggStrengDeaktivert Samtlige foreldre ble varslet."
-        else "$loggStrengDeaktivert Foreldrene ble varslet for $varselSendt av $antallVurderteForespørsler.size forespørsler"
+        else "$loggStrengDeaktivert Foreldrene ble varslet for $varselSendt av $antallVurderteForespørsler forespørsler"
 
         if (antallVurderteForespørsler > 0) log.info(loggstreng)
     }
-}
\ No newline at end of file
+}
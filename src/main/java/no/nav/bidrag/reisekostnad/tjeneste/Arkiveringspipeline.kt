@@ -0,0 +1,80 @@
+package no.nav.bidrag.reisekostnad.tjeneste
+
+import io.micrometer.core.instrument.MeterRegistry
+import io.micrometer.core.instrument.Timer
+import mu.KotlinLogging
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
+import org.springframework.stereotype.Component
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
+import java.util.concurrent.Semaphore
+
+private val log = KotlinLogging.logger {}
+
+/**
+ * Arkiverer mange forespørsler samtidig. Arkiveringen er delt i stegene laste, berike, generere, journalføre og lagre. Hver forespørsel
+ * behandles på egen virtuell tråd, og antall forespørsler som er inne i et steg samtidig begrenses per steg. Feil i én forespørsel logges og
+ * stopper ikke behandlingen av de øvrige.
+ */
+@Component
+class Arkiveringspipeline(
+    private val arkiveringstjeneste: Arkiveringstjeneste,
+    private val databasetjeneste: Databasetjeneste,
+    private val meterRegistry: MeterRegistry,
+    egenskaper: Egenskaper
+) {
+    private val laste = Steg("laste", egenskaper.arkivering.samtidighetLaste)
+    private val berike = Steg("berike", egenskaper.arkivering.samtidighetBerike)
+    private val generere = Steg("generere", egenskaper.arkivering.samtidighetGenerere)
+    private val journalføre = Steg("journalfoere", egenskaper.arkivering.samtidighetJournalfoere)
+    private val lagre = Steg("lagre", egenskaper.arkivering.samtidighetLagre)
+
+    /**
+     * Returnerer antall forespørsler som ble arkivert.
+     */
+    fun arkivere(idForespørsler: Collection<Int>): Int {
+        if (idForespørsler.isEmpty()) return 0
+
+        return Executors.newVirtualThreadPerTaskExecutor().use { utfører ->
+            idForespørsler.map { id -> utfører.submit(Callable { arkivere(id) }) }.count { it.get() }
+        }
+    }
+
+    private fun arkivere(idForespørsel: Int): Boolean {
+        return try {
+            val grunnlag = laste.utføre { arkiveringstjeneste.henteArkiveringsgrunnlag(idForespørsel) }
+            if (grunnlag == null) {
+                lagre.utføre { databasetjeneste.ferdigstilleArkiveringsbestillinger(idForespørsel) }
+                return false
+            }
+            val dokumentgrunnlag = berike.utføre { arkiveringstjeneste.hentePersoner(grunnlag) }
+            val pdfDokument = generere.utføre { arkiveringstjeneste.genererePdf(dokumentgrunnlag) }
+            val idJournalpost = journalføre.utføre { arkiveringstjeneste.journalføre(grunnlag, pdfDokument) }
+            lagre.utføre { databasetjeneste.registrereJournalføring(idForespørsel, idJournalpost) }
+            log.info { "Arkivert dokument for forespørsel $idForespørsel med journalpostid $idJournalpost" }
+            true
+        } catch (e: Exception) {
+            log.error("Det skjedde en feil ved arkivering av dokument for forespørsel $idForespørsel", e)
+            false
+        }
+    }
+
+    private inner class Steg(navn: String, samtidighet: Int) {
+        private val plasser = Semaphore(maxOf(1, samtidighet))
+        private val tidsbruk = Timer.builder("reisekostnad_arkivering_steg")
+            .tag("steg", navn)
+            .description("Tidsbruk per forespørsel i steget, inkludert ventetid på ledig plass")
+            .register(meterRegistry)
+
+        fun <T> utføre(oppgave: () -> T): T {
+            val måling = Timer.start(meterRegistry)
+            plasser.acquire()
+            try {
+                return oppgave()
+            } finally {
+                plasser.release()
+                måling.stop(tidsbruk)
+            }
+        }
+    }
+}
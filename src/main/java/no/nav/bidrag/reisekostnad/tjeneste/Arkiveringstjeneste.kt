@@ -2,11 +2,13 @@ package no.nav.bidrag.reisekostnad.tjeneste
 
 import jakarta.transaction.Transactional
 import mu.KotlinLogging
+import no.nav.bidrag.reisekostnad.aop.Persontilgang
+import no.nav.bidrag.reisekostnad.api.dto.ut.PersonDto
 import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel
 import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode
 import no.nav.bidrag.reisekostnad.feilhåndtering.Valideringsfeil
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.BidragDokumentkonsument
-import no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf.PdfGenerator
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf.PdfGenereringskø
 import no.nav.bidrag.reisekostnad.model.erArkivert
 import no.nav.bidrag.reisekostnad.model.kanArkiveres
 import no.nav.bidrag.reisekostnad.tjeneste.støtte.Mapper
@@ -20,36 +22,93 @@ private val log = KotlinLogging.logger {}
 class Arkiveringstjeneste(
     val bidragDokumentkonsument: BidragDokumentkonsument,
     val mapper: Mapper,
-    val databasetjeneste: Databasetjeneste
+    val databasetjeneste: Databasetjeneste,
+    val pdfGenereringskø: PdfGenereringskø
 ) {
-    @Transactional
+    /**
+     * Arkiverer én forespørsel med de samme stegene som [Arkiveringspipeline]. Bare lesingen av forespørselen og lagringen av journalposten
+     * skjer i transaksjon, slik at ingen databaseforbindelse holdes mens PDF-en genereres og journalføres.
+     */
     fun arkivereForespørsel(idForespørsel: Int) {
         try {
-            val forespørsel = databasetjeneste.henteAktivForespørsel(idForespørsel)
-
-            if (forespørsel.erArkivert) return
-            if (!forespørsel.kanArkiveres) throw Valideringsfeil(Feilkode.KAN_IKKE_ARKIVERE_FORESPØRSEL)
-
-            val pdfDokument = opprettPdf(forespørsel)
-            val referanseId = "$REISEKOSTNAD_REFERANSEIDPREFIKS$idForespørsel"
-
-            val respons = bidragDokumentkonsument.opprettJournalpost(forespørsel.hovedpart.personident, referanseId, pdfDokument)
-            forespørsel.journalført = LocalDateTime.now()
-            forespørsel.idJournalpost = respons.journalpostId
-            log.info { "Arkivert dokument for forespørsel $idForespørsel med journalpostid ${respons.journalpostId}" }
+            val grunnlag = henteArkiveringsgrunnlag(idForespørsel) ?: return
+            val pdfDokument = genererePdf(hentePersoner(grunnlag))
+            val idJournalpost = journalføre(grunnlag, pdfDokument)
+            databasetjeneste.registrereJournalføring(idForespørsel, idJournalpost)
+            log.info { "Arkivert dokument for forespørsel $idForespørsel med journalpostid $idJournalpost" }
         } catch (e: Exception){
             log.error("Det skjedde en feil ved arkivering av dokument for forespørsel $idForespørsel", e)
         }
     }
 
-    private fun opprettPdf(forespørsel: Forespørsel): ByteArray {
-        val barn = forespørsel.barn.map { mapper.tilPersonDto(it?.personident) }.toSet()
-        val hovedpart = mapper.tilPersonDto(forespørsel.hovedpart.personident)
-        val motpart = mapper.tilPersonDto(forespørsel.motpart.personident)
-        return PdfGenerator.genererePdf(barn, hovedpart, motpart, forespørsel.samtykket)
+    /**
+     * Første steg i arkiveringen. Returnerer null dersom forespørselen allerede er arkivert, eller ikke lenger er aktiv, slik at bestillingen
+     * ferdigstilles i stedet for å bli forsøkt på nytt.
+     */
+    @Transactional
+    fun henteArkiveringsgrunnlag(idForespørsel: Int): Arkiveringsgrunnlag? {
+        val forespørsel = databasetjeneste.finneAktivForespørsel(idForespørsel).orElse(null)
+        if (forespørsel == null) {
+            log.info { "Forespørsel $idForespørsel er ikke lenger aktiv, og blir ikke arkivert" }
+            return null
+        }
+
+        if (forespørsel.erArkivert) return null
+        if (!forespørsel.kanArkiveres) throw Valideringsfeil(Feilkode.KAN_IKKE_ARKIVERE_FORESPØRSEL)
+
+        return forespørsel.tilArkiveringsgrunnlag()
     }
 
+    /**
+     * Personinfo for barna og partene hentes med ett samlet oppslag. Arkiveringen kjøres uten pålogget person, og oppslaget gjøres derfor
+     * som system.
+     */
+    fun hentePersoner(grunnlag: Arkiveringsgrunnlag): Arkivdokumentgrunnlag {
+        val identerBarn = grunnlag.identerBarn.filterNotNull()
+        val personer = Persontilgang.somSystem { mapper.tilPersonDto(identerBarn + grunnlag.hovedpartIdent + grunnlag.motpartIdent) }
+        val barn = identerBarn.map { personer.getValue(it) }.toSet()
+        return Arkivdokumentgrunnlag(barn, personer.getValue(grunnlag.hovedpartIdent), personer.getValue(grunnlag.motpartIdent), grunnlag.samtykket)
+    }
+
+    fun genererePdf(dokumentgrunnlag: Arkivdokumentgrunnlag): ByteArray {
+        return pdfGenereringskø.genererePdf(dokumentgrunnlag.barn, dokumentgrunnlag.hovedpart, dokumentgrunnlag.motpart, dokumentgrunnlag.samtykket)
+    }
+
+    /**
+     * Oppretter journalpost for dokumentet, og returnerer id til journalposten.
+     */
+    fun journalføre(grunnlag: Arkiveringsgrunnlag, pdfDokument: ByteArray): String? {
+        val referanseId = "$REISEKOSTNAD_REFERANSEIDPREFIKS${grunnlag.idForespørsel}"
+        return bidragDokumentkonsument.opprettJournalpost(grunnlag.hovedpartIdent, referanseId, pdfDokument).journalpostId
+    }
+
+    private fun Forespørsel.tilArkiveringsgrunnlag() = Arkiveringsgrunnlag(
+        idForespørsel = id,
+        hovedpartIdent = hovedpart.personident,
+        motpartIdent = motpart.personident,
+        identerBarn = barn.map { it?.personident }.toSet(),
+        samtykket = samtykket
+    )
+
     companion object {
         private const val REISEKOSTNAD_REFERANSEIDPREFIKS = "REISEKOSTNAD_"
     }
-}
\ No newline at end of file
+}
+
+/**
+ * Det som trengs fra forespørselen for å arkivere den. Holdes adskilt fra entiteten slik at stegene i arkiveringen kan kjøre utenfor transaksjon.
+ */
+data class Arkiveringsgrunnlag(
+    val idForespørsel: Int,
+    val hovedpartIdent: String,
+    val motpartIdent: String,
+    val identerBarn: Set<String?>,
+    val samtykket: LocalDateTime?
+)
+
+data class Arkivdokumentgrunnlag(
+    val barn: Set<PersonDto>,
+    val hovedpart: PersonDto,
+    val motpart: PersonDto,
+    val samtykket: LocalDateTime?
+)
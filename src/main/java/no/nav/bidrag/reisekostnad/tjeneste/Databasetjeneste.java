@@ -2,35 +2,49 @@ package no.nav.bidrag.reisekostnad.tjeneste;
 
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.slf4j.Slf4j;
+import no.nav.bidrag.reisekostnad.database.dao.ArkiveringsbestillingDao;
 import no.nav.bidrag.reisekostnad.database.dao.BarnDao;
 import no.nav.bidrag.reisekostnad.database.dao.ForelderDao;
 import no.nav.bidrag.reisekostnad.database.dao.ForespørselDao;
 import no.nav.bidrag.reisekostnad.database.dao.OppgavebestillingDao;
+import no.nav.bidrag.reisekostnad.database.dao.VarselbestillingDao;
+import no.nav.bidrag.reisekostnad.database.datamodell.Arkiveringsbestilling;
+import no.nav.bidrag.reisekostnad.database.datamodell.Barn;
 import no.nav.bidrag.reisekostnad.database.datamodell.Deaktivator;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forelder;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel;
 import no.nav.bidrag.reisekostnad.database.datamodell.Oppgavebestilling;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varselbestilling;
 import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
 import no.nav.bidrag.reisekostnad.feilhåndtering.InternFeil;
 import no.nav.bidrag.reisekostnad.feilhåndtering.Valideringsfeil;
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper;
 import no.nav.bidrag.reisekostnad.model.ForespørselUtvidelserKt;
 import no.nav.bidrag.reisekostnad.model.KonstanterKt;
+import no.nav.bidrag.reisekostnad.tjeneste.støtte.Familiekontekst;
 import no.nav.bidrag.reisekostnad.tjeneste.støtte.Mapper;
 import org.apache.commons.lang3.StringUtils;
 import org.jsoup.helper.Validate;
 import org.jsoup.helper.ValidationException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import jakarta.transaction.Transactional;
 import jakarta.transaction.Transactional.TxType;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 import static no.nav.bidrag.reisekostnad.konfigurasjon.Applikasjonskonfig.FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING;
 import static no.nav.bidrag.reisekostnad.konfigurasjon.Applikasjonskonfig.SIKKER_LOGG;
@@ -39,22 +53,31 @@ import static no.nav.bidrag.reisekostnad.konfigurasjon.Applikasjonskonfig.SIKKER
 @Service
 public class Databasetjeneste {
 
+    private ArkiveringsbestillingDao arkiveringsbestillingDao;
     private BarnDao barnDao;
     private ForelderDao forelderDao;
     private ForespørselDao forespørselDao;
     private OppgavebestillingDao oppgavebestillingDao;
+    private VarselbestillingDao varselbestillingDao;
     private MeterRegistry meterRegistry;
     private Mapper mapper;
+    private Egenskaper egenskaper;
+    private TransactionTemplate transactionTemplate;
 
     @Autowired
-    public Databasetjeneste(BarnDao barnDao, ForelderDao forelderDao, ForespørselDao forespørselDao, OppgavebestillingDao oppgavebestillingDao,
-        MeterRegistry meterRegistry, Mapper mapper) {
+    public Databasetjeneste(ArkiveringsbestillingDao arkiveringsbestillingDao, BarnDao barnDao, ForelderDao forelderDao, ForespørselDao forespørselDao,
+        OppgavebestillingDao oppgavebestillingDao, VarselbestillingDao varselbestillingDao, MeterRegistry meterRegistry, Mapper mapper,
+        Egenskaper egenskaper, TransactionTemplate transactionTemplate) {
+        this.arkiveringsbestillingDao = arkiveringsbestillingDao;
         this.barnDao = barnDao;
         this.forelderDao = forelderDao;
         this.forespørselDao = forespørselDao;
         this.oppgavebestillingDao = oppgavebestillingDao;
+        this.varselbestillingDao = varselbestillingDao;
         this.meterRegistry = meterRegistry;
         this.mapper = mapper;
+        this.egenskaper = egenskaper;
+        this.transactionTemplate = transactionTemplate;
     }
 
     @Transactional(TxType.REQUIRES_NEW)
@@ -62,6 +85,7 @@ public class Databasetjeneste {
         var originalForespørsel = henteAktivForespørsel(forespørselId);
         if (ForespørselUtvidelserKt.getAlleBarnHarFylt15år(originalForespørsel)) {
             originalForespørsel.setKreverSamtykke(false);
+            bestilleArkivering(originalForespørsel);
             countForespørselIkkeKreverSamtykke();
             log.info("Forespørsel med id {} ble endret til å ikke kreve samtykke", forespørselId);
         }
@@ -93,6 +117,15 @@ public class Databasetjeneste {
 
     @Transactional
     public Forespørsel lagreNyForespørsel(String hovedpart, String motpart, Set<String> identerBarn, boolean kreverSamtykke) {
+        return lagreNyForespørsel(hovedpart, motpart, identerBarn, kreverSamtykke, null);
+    }
+
+    /**
+     * Fødselsdato til barna hentes fra familiekonteksten dersom den er oppgitt, og ellers fra bidrag-person.
+     */
+    @Transactional
+    public Forespørsel lagreNyForespørsel(String hovedpart, String motpart, Set<String> identerBarn, boolean kreverSamtykke,
+            Familiekontekst familiekontekst) {
 
         for (String ident : identerBarn) {
             var barn = barnDao.henteBarnTilknyttetAktivForespørsel(ident);
@@ -107,14 +140,19 @@ public class Databasetjeneste {
         var eksisterendeMotpart = forelderDao.finnMedPersonident(motpart);
 
         var samtykkefrist = kreverSamtykke ? LocalDate.now().plusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING) : null;
+        var barn = familiekontekst == null ? mapper.tilEntitet(identerBarn) : mapper.tilEntitet(identerBarn, familiekontekst);
 
         var nyForespørsel = Forespørsel.builder().opprettet(LocalDateTime.now())
                 .hovedpart(ekisterendeHovedpart.orElseGet(() -> Forelder.builder().personident(hovedpart).build()))
-                .motpart(eksisterendeMotpart.orElseGet(() -> Forelder.builder().personident(motpart).build())).barn(mapper.tilEntitet(identerBarn))
+                .motpart(eksisterendeMotpart.orElseGet(() -> Forelder.builder().personident(motpart).build())).barn(barn)
                 .kreverSamtykke(kreverSamtykke).samtykkefrist(samtykkefrist).build();
 
         countReisekostnadOpprettet(kreverSamtykke, identerBarn.size());
-        return forespørselDao.save(nyForespørsel);
+        var lagretForespørsel = forespørselDao.save(nyForespørsel);
+        if (!kreverSamtykke) {
+            bestilleArkivering(lagretForespørsel);
+        }
+        return lagretForespørsel;
     }
 
     @Transactional
@@ -125,6 +163,7 @@ public class Databasetjeneste {
             var nå = LocalDateTime.now();
             SIKKER_LOGG.info("Motpart (ident: {}) samtykker til fordeling av reisekostnader relatert til forespørsel id {}", personident, idForespørsel);
             forespørsel.setSamtykket(nå);
+            bestilleArkivering(forespørsel);
             countForespørselGittSamtykke();
         } else {
             log.warn("Fant ikke forespørsel med id {}. Får ikke gitt samtykke.", idForespørsel);
@@ -156,75 +195,128 @@ public class Databasetjeneste {
     }
 
     public Forespørsel henteAktivForespørsel(int idForespørsel) {
-        var forespørsel = forespørselDao.henteAktivForespørsel(idForespørsel);
-        if (forespørsel.isPresent() && forespørsel.get().getDeaktivert() == null) {
-            validereForespørsel(forespørsel.get());
-            return forespørsel.get();
-        } else {
-            throw new InternFeil(Feilkode.RESSURS_IKKE_FUNNET);
-        }
+        return finneAktivForespørsel(idForespørsel).orElseThrow(() -> new InternFeil(Feilkode.RESSURS_IKKE_FUNNET));
+    }
+
+    /**
+     * Henter forespørselen dersom den finnes og ikke er deaktivert.
+     */
+    public Optional<Forespørsel> finneAktivForespørsel(int idForespørsel) {
+        var forespørsel = forespørselDao.henteAktivForespørsel(idForespørsel).filter(f -> f.getDeaktivert() == null);
+        forespørsel.ifPresent(this::validereForespørsel);
+        return forespørsel;
     }
 
     @Transactional
-    public int anonymisereBarnUtenTilknytningTilAktiveForespørsler() {
-
-        var barnSomSkalAnonymiseres = barnDao.henteBarnUtenTilknytningTilAktivForespørsel(
-                LocalDate.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING).atStartOfDay());
-
-        // Dobbelsjekker at uttrekket kun inneholder barn som skal anonymiseres
-        barnSomSkalAnonymiseres = barnSomSkalAnonymiseres.stream()
-                .filter(Objects::nonNull)
-                .filter(b -> b.getPersonident() != null)
-                .filter(b -> b.getForespørsel().getDeaktivert() != null)
-                .filter(b -> b.getForespørsel().getDeaktivert()
-                        .isBefore(LocalDate.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING).atStartOfDay()))
-                .collect(Collectors.toSet());
-
-        log.info("Fant {} barn uten tilknytning til aktive forespørsler. Anonymiserer disse", barnSomSkalAnonymiseres.size());
-        var anonymiseringstidspunkt = LocalDateTime.now();
-        barnSomSkalAnonymiseres.forEach(b -> {
-            b.setPersonident(null);
-            b.setAnonymisert(anonymiseringstidspunkt);
-            b.getForespørsel().setAnonymisert(anonymiseringstidspunkt);
-        });
-        return barnSomSkalAnonymiseres.size();
+    public void registrereJournalføring(int idForespørsel, String idJournalpost) {
+        var forespørsel = henteAktivForespørsel(idForespørsel);
+        var nå = LocalDateTime.now();
+        forespørsel.setJournalført(nå);
+        forespørsel.setIdJournalpost(idJournalpost);
+        arkiveringsbestillingDao.ferdigstilleBestillinger(idForespørsel, nå);
+    }
+
+    @Transactional
+    public void ferdigstilleArkiveringsbestillinger(int idForespørsel) {
+        arkiveringsbestillingDao.ferdigstilleBestillinger(idForespørsel, LocalDateTime.now());
     }
 
+    /**
+     * Reserverer inntil antall ledige arkiveringsbestillinger, og returnerer id til de tilhørende forespørslene. Reserverte bestillinger blir
+     * tilgjengelige igjen etter reservasjonstiden dersom de ikke ferdigstilles.
+     */
     @Transactional
-    public int sletteForeldreUtenTilknytningTilAktiveForespørsler() {
-        log.info("Sletter foreldre uten tilknytning til aktive forespørsler");
-        var foreldreSomSkalSlettes = forelderDao.henteForeldreUtenTilknytningTilAktiveForespørsler(
-                LocalDate.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING));
+    public List<Integer> reservereArkiveringsbestillinger(int antall, Duration reservasjonstid, int maksAntallForsøk) {
+        var nå = LocalDateTime.now();
+        var bestillinger = arkiveringsbestillingDao.låseLedigeBestillinger(nå, maksAntallForsøk, PageRequest.of(0, antall));
+        bestillinger.forEach(b -> {
+            b.setTilgjengeligFra(nå.plus(reservasjonstid));
+            b.setAntallForsøk(b.getAntallForsøk() + 1);
+            if (b.getAntallForsøk() == maksAntallForsøk) {
+                log.warn("Siste forsøk på arkivering av forespørsel med id {}", b.getForespørsel().getId());
+            }
+        });
+        return bestillinger.stream().map(b -> b.getForespørsel().getId()).toList();
+    }
 
-        var opprinneligAntallForeldreSomSkalSlettes = foreldreSomSkalSlettes.size();
+    /**
+     * Sørger for at alle forespørsler som er klare for innsending har en arkiveringsbestilling. Bestillinger som har brukt opp alle forsøk får
+     * nye forsøk.
+     */
+    @Transactional
+    public int bestilleArkiveringAvForespørslerSomErKlareForInnsending() {
+        var idForespørsler = henteForespørslerSomErKlareForInnsending();
+        idForespørsler.forEach(id -> bestilleArkivering(forespørselDao.getReferenceById(id)));
+        return idForespørsler.size();
+    }
 
-        // Fjerner evntuelle foreldre som har ikke-ferdigstilte brukernotifikasjonsoppgaver
-        foreldreSomSkalSlettes = foreldreSomSkalSlettes.stream().filter(f -> !harAktivOppgave(f)).collect(Collectors.toSet());
-        if (opprinneligAntallForeldreSomSkalSlettes > foreldreSomSkalSlettes.size()) {
-            log.warn(
-                    "Det opprinnelige uttrekket over slettbare foreldre inneholdt {} foreldre med aktive brukernotifikasjonsoppgaver,  disse ble ikke slettet.",
-                    opprinneligAntallForeldreSomSkalSlettes - foreldreSomSkalSlettes.size());
+    private void bestilleArkivering(Forespørsel forespørsel) {
+        var nå = LocalDateTime.now();
+        var aktivBestilling = arkiveringsbestillingDao.henteAktivBestilling(forespørsel.getId());
+        if (aktivBestilling.isPresent()) {
+            // Bestillinger som er reservert skal ikke røres
+            if (!aktivBestilling.get().getTilgjengeligFra().isAfter(nå)) {
+                aktivBestilling.get().setAntallForsøk(0);
+            }
+        } else {
+            arkiveringsbestillingDao.save(Arkiveringsbestilling.builder().forespørsel(forespørsel).opprettet(nå).tilgjengeligFra(nå).build());
         }
+    }
 
-        log.info("Fant {} foreldre uten tilknyting til aktive forespørsler. Anonymiserer disse.", foreldreSomSkalSlettes.size());
+    /**
+     * Henter id til forespørsler i partisjonen som har vært deaktivert lenge nok, og som fortsatt har barn med personident.
+     */
+    public List<Integer> henteIdTilForespørslerMedBarnSomSkalAnonymiseres(int etterId, int partisjon, int antallPartisjoner, Pageable side) {
+        var deaktivertFør = LocalDate.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING).atStartOfDay();
+        return forespørselDao.henteIdTilForespørslerMedBarnSomSkalAnonymiseres(deaktivertFør, etterId, partisjon, antallPartisjoner, side);
+    }
 
-        foreldreSomSkalSlettes.forEach(f -> {
-            forelderDao.delete(f);
+    /**
+     * Anonymiserer barna i forespørslene med én oppdatering i egen transaksjon. Returnerer antall barn som ble anonymisert.
+     */
+    public int anonymisereBarn(List<Integer> idForespørsler) {
+        return behandleBolk("barn", idForespørsler, bolk -> {
+            var anonymiseringstidspunkt = LocalDateTime.now();
+            forespørselDao.setteAnonymisert(bolk, anonymiseringstidspunkt);
+            return barnDao.anonymisereBarn(bolk, anonymiseringstidspunkt);
+        });
+    }
 
-            var hovedpart = forespørselDao.henteForespørslerForHovedpart(f.getPersonident());
-            hovedpart.forEach(h -> {
-                h.setHovedpart(null);
-                h.setAnonymisert(LocalDateTime.now());
-            });
+    /**
+     * Henter id til foreldre i partisjonen som kun er knyttet til forespørsler som har vært deaktivert lenge nok, og som ikke har aktive oppgaver.
+     */
+    public List<Integer> henteIdTilForeldreSomSkalSlettes(int etterId, int partisjon, int antallPartisjoner, Pageable side) {
+        var deaktivertFør = LocalDate.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING).atStartOfDay();
+        return forelderDao.henteIdTilForeldreUtenTilknytningTilAktiveForespørsler(deaktivertFør, etterId, partisjon, antallPartisjoner, side);
+    }
 
-            var motpart = forespørselDao.henteForespørslerForMotpart(f.getPersonident());
-            motpart.forEach(m -> {
-                m.setMotpart(null);
-                m.setAnonymisert(LocalDateTime.now());
-            });
+    /**
+     * Fjerner foreldrene fra forespørsler og oppgaver, og sletter dem, i egen transaksjon. Returnerer antall foreldre som ble slettet.
+     */
+    public int sletteForeldre(List<Integer> idForeldre) {
+        return behandleBolk("foreldre", idForeldre, bolk -> {
+            var slettetidspunkt = LocalDateTime.now();
+            forespørselDao.fjerneHovedparter(bolk, slettetidspunkt);
+            forespørselDao.fjerneMotparter(bolk, slettetidspunkt);
+            oppgavebestillingDao.fjerneForeldre(bolk);
+            var antallSlettet = forelderDao.sletteForeldre(bolk);
+            SIKKER_LOGG.info("Slettet foreldre med id {}", bolk);
+            return antallSlettet;
         });
+    }
 
-        return foreldreSomSkalSlettes.size();
+    /**
+     * Utfører behandlingen av bolken i egen transaksjon, og måler tidsbruken.
+     */
+    private int behandleBolk(String type, List<Integer> bolk, Function<List<Integer>, Integer> behandling) {
+        var måling = Timer.start(meterRegistry);
+        var antall = Objects.requireNonNull(transactionTemplate.execute(status -> behandling.apply(bolk)));
+        var tidsbruk = måling.stop(Timer.builder("reisekostnad_anonymisering_bolk")
+            .tag("type", type)
+            .description("Tidsbruk per bolk i anonymiseringen")
+            .register(meterRegistry));
+        log.info("Anonymiserte {} {} i bolk med {} id-er på {} ms", antall, type, bolk.size(), Duration.ofNanos(tidsbruk).toMillis());
+        return antall;
     }
 
     public Oppgavebestilling lagreNyOppgavebestilling(int idForespørsel, String eventId) {
@@ -255,18 +347,30 @@ public class Databasetjeneste {
         return aktiveForespørslerMedSamtykke;
     }
 
-    public Set<Integer> henteIdTilAktiveForespørsler(LocalDateTime opprettetFør, boolean erJournalført) {
-        return erJournalført ? forespørselDao.henteIdTilAktiveJournalførteForespørsler(opprettetFør)
-                : forespørselDao.henteIdTilAktiveForespørsler(opprettetFør);
+    public List<Integer> henteIdTilAktiveJournalførteForespørsler(LocalDateTime opprettetFør, int etterId, int partisjon, int antallPartisjoner,
+            Pageable side) {
+        return forespørselDao.henteIdTilAktiveJournalførteForespørsler(opprettetFør, etterId, partisjon, antallPartisjoner, side);
     }
 
-    public List<Forespørsel> hentForespørselSomInneholderBarnSomHarFylt15år() {
-        var forespørsler = forespørselDao.henteForespørslerSomKreverSamtykkeOgInneholderBarnFødtSammeDagEllerEtterDato(
-                KonstanterKt.getDato15ÅrTilbakeFraIdag());
+    public List<Forespørsel> henteAktiveForespørslerOpprettetFør(LocalDateTime opprettetFør, int etterId, int partisjon, int antallPartisjoner,
+            Pageable side) {
+        return forespørselDao.henteAktiveForespørslerOpprettetFør(opprettetFør, etterId, partisjon, antallPartisjoner, side);
+    }
 
-        log.info("Fant {} aktive forespørsler om inneholder barn som har nylig fylt 15år", forespørsler.size());
+    /**
+     * Returnerer de av personene som er hovedpart, motpart eller barn i en forespørsel der den oppgitte parten er hovedpart eller motpart.
+     */
+    public Set<String> henteIdenterTilknyttetForespørselTilPart(String personidentPart, Collection<String> personidenter) {
+        return forespørselDao.henteIdenterTilknyttetForespørselTilPart(personidentPart, personidenter);
+    }
+
+    public List<Forespørsel> henteAktiveForespørslerOpprettetEtter(LocalDateTime opprettetEtter, int etterId, int antall) {
+        return forespørselDao.henteAktiveForespørslerOpprettetEtter(opprettetEtter, etterId, PageRequest.of(0, antall));
+    }
 
-        return forespørsler.stream().toList();
+    public List<Forespørsel> hentForespørselSomInneholderBarnSomHarFylt15år(int etterId, int partisjon, int antallPartisjoner, Pageable side) {
+        return forespørselDao.henteForespørslerSomKreverSamtykkeOgInneholderBarnFødtSammeDagEllerEtterDato(KonstanterKt.getDato15ÅrTilbakeFraIdag(),
+                etterId, partisjon, antallPartisjoner, side);
     }
 
     private boolean erHovedpart(String personident, Forespørsel forespørsel) {
@@ -278,6 +382,49 @@ public class Databasetjeneste {
                 forespørsel.getMotpart().getPersonident()));
     }
 
+    @Transactional
+    public void bestilleVarsel(Varselbestilling varselbestilling) {
+        varselbestillingDao.save(varselbestilling);
+    }
+
+    /**
+     * Registrerer oppgavebestillingen i samme transaksjon som varselet bestilles, slik at motpart ikke får flere samtykkeoppgaver for samme
+     * forespørsel.
+     */
+    @Transactional
+    public void bestilleSamtykkeoppgave(int idForespørsel, Varselbestilling varselbestilling) {
+        lagreNyOppgavebestilling(idForespørsel, varselbestilling.getEventId());
+        varselbestillingDao.save(varselbestilling);
+    }
+
+    @Transactional
+    public void bestilleFerdigstillingAvOppgave(Varselbestilling varselbestilling) {
+        setteOppgaveTilFerdigstilt(varselbestilling.getEventId());
+        varselbestillingDao.save(varselbestilling);
+    }
+
+    /**
+     * Reserverer inntil antall varsler som ikke er sendt. Reserverte varsler blir tilgjengelige igjen etter reservasjonstiden dersom de ikke
+     * registreres som sendt.
+     */
+    @Transactional
+    public List<Varselbestilling> reservereVarselbestillinger(int antall, Duration reservasjonstid, int maksAntallForsøk) {
+        var nå = LocalDateTime.now();
+        var bestillinger = varselbestillingDao.låseLedigeBestillinger(nå, maksAntallForsøk, PageRequest.of(0, antall));
+        bestillinger.forEach(b -> {
+            b.setTilgjengeligFra(nå.plus(reservasjonstid));
+            b.setAntallForsøk(b.getAntallForsøk() + 1);
+        });
+        return bestillinger;
+    }
+
+    @Transactional
+    public void registrereVarslerSomSendt(Collection<Integer> idVarselbestillinger) {
+        if (!idVarselbestillinger.isEmpty()) {
+            varselbestillingDao.registrereSendt(idVarselbestillinger, LocalDateTime.now());
+        }
+    }
+
     @Transactional
     public void setteOppgaveTilFerdigstilt(String eventId) {
         var aktiveOppgaver = oppgavebestillingDao.henteOppgavebestilling(eventId);
@@ -293,14 +440,8 @@ public class Databasetjeneste {
         return oppgavebestillingDao.henteAktiveOppgaver(idForespørsel, personidentMotpart);
     }
 
-    public Set<Oppgavebestilling> henteOppgaverSomSkalFerdigstilles() {
-        return oppgavebestillingDao.henteAktiveOppgaverKnyttetTilDeaktiverteForespørsler();
-    }
-
-    private boolean harAktivOppgave(Forelder forelder) {
-        var aktiveOppgaver = oppgavebestillingDao.henteAktiveOppgaver(forelder.getPersonident());
-        log.info("Fant {} aktive oppgaver for forelder med id {}", forelder.getId());
-        return aktiveOppgaver.size() > 0;
+    public List<Oppgavebestilling> henteOppgaverSomSkalFerdigstilles(int etterId, int partisjon, int antallPartisjoner, Pageable side) {
+        return oppgavebestillingDao.henteAktiveOppgaverKnyttetTilDeaktiverteForespørsler(etterId, partisjon, antallPartisjoner, side);
     }
 
     private void validereForespørsel(Forespørsel forespørsel) throws ValidationException {
@@ -3,9 +3,12 @@ package no.nav.bidrag.reisekostnad.tjeneste;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.MeterRegistry;
 import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import no.nav.bidrag.commons.web.HttpResponse;
@@ -16,12 +19,15 @@ import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
 import no.nav.bidrag.reisekostnad.feilhåndtering.Persondatafeil;
 import no.nav.bidrag.reisekostnad.feilhåndtering.Valideringsfeil;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.BidragPersonkonsument;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.Personlaster;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Diskresjonskode;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentFamilieRespons;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.MotpartBarnRelasjon;
 import no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon.Brukernotifikasjonkonsument;
+import no.nav.bidrag.reisekostnad.tjeneste.støtte.Familiekontekst;
 import no.nav.bidrag.reisekostnad.tjeneste.støtte.Krypteringsverktøy;
 import no.nav.bidrag.reisekostnad.tjeneste.støtte.Mapper;
+import no.nav.bidrag.reisekostnad.tjeneste.støtte.Trådkontekst;
 import org.apache.commons.lang3.StringUtils;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
@@ -31,58 +37,69 @@ import org.springframework.stereotype.Service;
 @Service
 public class ReisekostnadApiTjeneste {
 
-  private Arkiveringstjeneste arkiveringstjeneste;
   private final BidragPersonkonsument bidragPersonkonsument;
   private final Brukernotifikasjonkonsument brukernotifikasjonkonsument;
   private final Databasetjeneste databasetjeneste;
   private final MeterRegistry meterRegistry;
   private final Mapper mapper;
+  private final Personlaster personlaster;
 
   @Autowired
   public ReisekostnadApiTjeneste(
-      Arkiveringstjeneste arkiveringstjeneste,
       BidragPersonkonsument bidragPersonkonsument,
       Brukernotifikasjonkonsument brukernotifikasjonkonsument,
       Databasetjeneste databasetjeneste,
-      MeterRegistry meterRegistry, Mapper mapper) {
-    this.arkiveringstjeneste = arkiveringstjeneste;
+      MeterRegistry meterRegistry, Mapper mapper, Personlaster personlaster) {
     this.bidragPersonkonsument = bidragPersonkonsument;
     this.brukernotifikasjonkonsument = brukernotifikasjonkonsument;
     this.databasetjeneste = databasetjeneste;
     this.meterRegistry = meterRegistry;
     this.mapper = mapper;
+    this.personlaster = personlaster;
   }
 
+  /**
+   * Familien og forespørslene til pålogget person hentes parallelt, og personinfo for partene i forespørslene hentes samlet når forespørslene
+   * er lest. Svartiden begrenses dermed av det tregeste oppslaget i stedet for summen av dem.
+   */
   public HttpResponse<BrukerinformasjonDto> henteBrukerinformasjon(String fnrPaaloggetBruker) {
-    var familierespons = bidragPersonkonsument.hentFamilie(fnrPaaloggetBruker);
-    try {
-      validerePåloggetPerson(familierespons);
-    } catch (Valideringsfeil valideringsfeil) {
-      log.warn("Pålogget person har diskresjon. Kan ikke bruke løsningen");
+    try (var utfører = Executors.newVirtualThreadPerTaskExecutor()) {
+      var familie = Trådkontekst.starte(() -> bidragPersonkonsument.hentFamilie(fnrPaaloggetBruker), utfører);
+      var forespørsler = Trådkontekst.starte(() -> mapper.henteSynligeForespørsler(fnrPaaloggetBruker), utfører);
+
+      var familierespons = Trådkontekst.vente(familie);
+      try {
+        validerePåloggetPerson(familierespons);
+      } catch (Valideringsfeil valideringsfeil) {
+        log.warn("Pålogget person har diskresjon. Kan ikke bruke løsningen");
+      }
+      return HttpResponse.Companion.from(HttpStatus.OK, mapper.tilDto(familierespons.get(), Trådkontekst.vente(forespørsler)));
     }
-    return HttpResponse.Companion.from(HttpStatus.OK, mapper.tilDto(familierespons.get()));
   }
 
   public HttpResponse<Void> oppretteForespørselOmFordelingAvReisekostnader(String personidentHovedpart, Set<String> krypterteIdenterBarn) {
     var familierespons = bidragPersonkonsument.hentFamilie(personidentHovedpart);
     validerePåloggetPerson(familierespons);
-    var personidenterBarn = krypterteIdenterBarn.stream().map(k -> dekryptere(k)).collect(Collectors.toSet());
+    var personidenterBarn = new HashSet<>(Krypteringsverktøy.dekryptereAlle(krypterteIdenterBarn));
 
     // Kaster Valideringsfeil dersom hovedpart ikke er registrert med familierelasjoner eller mangler relasjon til minst ett av de oppgitte barna.
     validereRelasjonTilBarn(personidenterBarn, familierespons);
 
+    // Alder og fødselsdato til barna hentes fra familieresponsen, slik at det ikke gjøres flere kall mot bidrag-person
+    var familiekontekst = Familiekontekst.av(familierespons.get());
+    supplereManglendeFødselsdatoer(personidenterBarn, familiekontekst);
     familierespons.get().getPersonensMotpartBarnRelasjon().stream().filter(Objects::nonNull)
         .filter(mbr -> mbr.getMotpart() != null && !StringUtils.isEmpty(mbr.getMotpart().getIdent()))
-        .forEach(m -> lagreForespørsel(personidentHovedpart, m.getMotpart().getIdent(), henteUtBarnaSomTilhørerMotpart(m, personidenterBarn)));
+        .forEach(m -> lagreForespørsel(personidentHovedpart, m.getMotpart().getIdent(), henteUtBarnaSomTilhørerMotpart(m, personidenterBarn),
+            familiekontekst));
 
     return HttpResponse.Companion.from(HttpStatus.CREATED);
   }
 
   public HttpResponse<Void> oppdatereForespørselMedSamtykke(int idForespørsel, String personidentMotpart) {
-    // Kaster Valideringsfeil dersom forespørsel ikke finnes eller oppdatering av samtykke  feiler
+    // Kaster Valideringsfeil dersom forespørsel ikke finnes eller oppdatering av samtykke  feiler. Arkivering bestilles i samme transaksjon.
     databasetjeneste.giSamtykke(idForespørsel, personidentMotpart);
     sletteSamtykkeoppgave(idForespørsel, personidentMotpart);
-    arkiveringstjeneste.arkivereForespørsel(idForespørsel);
     return HttpResponse.Companion.from(HttpStatus.OK, null);
   }
 
@@ -115,6 +132,25 @@ public class ReisekostnadApiTjeneste {
     }
   }
 
+  /**
+   * Barn som mangler fødselsdato i familieresponsen slås opp i personinfo. Barn uten kjent fødselsdato regnes fortsatt som under 15 år.
+   */
+  private void supplereManglendeFødselsdatoer(Set<String> personidenterBarn, Familiekontekst familiekontekst) {
+    var barnMedFødselsdato = familiekontekst.henteIdenterMedFødselsdato(personidenterBarn);
+    var barnUtenFødselsdato = personidenterBarn.stream().filter(b -> !barnMedFødselsdato.contains(b)).collect(Collectors.toSet());
+    if (barnUtenFødselsdato.isEmpty()) {
+      return;
+    }
+
+    var fødselsdatoer = new HashMap<String, LocalDate>();
+    personlaster.hente(barnUtenFødselsdato).forEach((personident, personinfo) -> {
+      if (personinfo != null && personinfo.getFoedselsdato() != null) {
+        fødselsdatoer.put(personident, personinfo.getFoedselsdato());
+      }
+    });
+    familiekontekst.supplereFødselsdatoer(fødselsdatoer);
+  }
+
   private Set<String> henteUtBarnaSomTilhørerMotpart(MotpartBarnRelasjon mBRelasjon, Set<String> valgteBarn) {
     return mBRelasjon.getFellesBarn().stream().filter(Objects::nonNull).filter(barn -> valgteBarn.contains(barn.getIdent())).map(b -> b.getIdent())
         .collect(Collectors.toSet());
@@ -143,17 +179,17 @@ public class ReisekostnadApiTjeneste {
     }
   }
 
-  private void lagreForespørsel(String personidentHovedpart, String personidentMotpart, Set<String> barn) {
+  private void lagreForespørsel(String personidentHovedpart, String personidentMotpart, Set<String> barn, Familiekontekst familiekontekst) {
 
-    var barnOver15År = filtrereUtBarnOver15År(barn);
-    var barnUnder15År = barn.stream().filter(b -> !erPersonOver15År(b)).collect(Collectors.toSet());
+    var barnOver15År = barn.stream().filter(familiekontekst::erOver15År).collect(Collectors.toSet());
+    var barnUnder15År = barn.stream().filter(b -> !familiekontekst.erOver15År(b)).collect(Collectors.toSet());
 
     if (barnOver15År.size() > 0) {
-      lagreNyForespørsel(personidentHovedpart, personidentMotpart, barnOver15År, false);
+      lagreNyForespørsel(personidentHovedpart, personidentMotpart, barnOver15År, false, familiekontekst);
     }
 
     if (barnUnder15År.size() > 0) {
-      var idForespørsel = lagreNyForespørsel(personidentHovedpart, personidentMotpart, barnUnder15År, true);
+      var idForespørsel = lagreNyForespørsel(personidentHovedpart, personidentMotpart, barnUnder15År, true, familiekontekst);
       if (idForespørsel > 0) {
         brukernotifikasjonkonsument.oppretteOppgaveTilMotpartOmSamtykke(idForespørsel, personidentMotpart);
         brukernotifikasjonkonsument.varsleOmNyForespørselSomVenterPåSamtykke(personidentHovedpart);
@@ -161,11 +197,10 @@ public class ReisekostnadApiTjeneste {
     }
   }
 
-  private int lagreNyForespørsel(String personidentHovedpart, String personidentMotpart, Set<String> barn, Boolean kreverSamtykke) {
-    var forespørsel = databasetjeneste.lagreNyForespørsel(personidentHovedpart, personidentMotpart, barn, kreverSamtykke);
-    if (!kreverSamtykke) {
-      arkiveringstjeneste.arkivereForespørsel(forespørsel.getId());
-    }
+  private int lagreNyForespørsel(String personidentHovedpart, String personidentMotpart, Set<String> barn, Boolean kreverSamtykke,
+      Familiekontekst familiekontekst) {
+    // Arkivering bestilles i samme transaksjon dersom forespørselen ikke krever samtykke
+    var forespørsel = databasetjeneste.lagreNyForespørsel(personidentHovedpart, personidentMotpart, barn, kreverSamtykke, familiekontekst);
     return forespørsel.getId();
   }
 
@@ -200,20 +235,6 @@ public class ReisekostnadApiTjeneste {
     return true;
   }
 
-  private boolean erPersonOver15År(String personident) {
-    var respons = bidragPersonkonsument.hentPersoninfo(personident);
-    var fødselsdato = respons.getFoedselsdato();
-    return fødselsdato != null && fødselsdato.isBefore(LocalDate.now().minusYears(15));
-  }
-
-  private Set<String> filtrereUtBarnOver15År(Set<String> alleBarn) {
-    return alleBarn.stream().filter(this::erPersonOver15År).collect(Collectors.toSet());
-  }
-
-  private String dekryptere(String kryptertPersonident) {
-    return Krypteringsverktøy.dekryptere(kryptertPersonident);
-  }
-
   private void countReisekostnadTrukket(){
     Counter.builder("reisekostnad_trukket")
         .description("Teller antall reisekostnader som er trukket")
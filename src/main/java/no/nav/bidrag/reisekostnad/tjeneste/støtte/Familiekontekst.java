@@ -0,0 +1,63 @@
+package no.nav.bidrag.reisekostnad.tjeneste.støtte;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Familiemedlem;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentFamilieRespons;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * Familieresponsen til pålogget person, indeksert på personident. Opprettes én gang per kall mot API-et, slik at alder og fødselsdato for
+ * hovedperson, motparter og felles barn kan avgjøres uten nye kall mot bidrag-person. Fødselsdato som mangler i familieresponsen kan
+ * suppleres fra personinfo.
+ */
+public final class Familiekontekst {
+
+  private final Map<String, Familiemedlem> familiemedlemPerIdent;
+  private final Map<String, LocalDate> supplerteFødselsdatoer = new HashMap<>();
+
+  private Familiekontekst(HentFamilieRespons familierespons) {
+    this.familiemedlemPerIdent = new HashMap<>();
+    var relasjoner = familierespons.getPersonensMotpartBarnRelasjon() == null ? Stream.<Familiemedlem>empty()
+        : familierespons.getPersonensMotpartBarnRelasjon().stream().filter(Objects::nonNull)
+            .flatMap(m -> Stream.concat(Stream.of(m.getMotpart()), m.getFellesBarn() == null ? Stream.<Familiemedlem>empty() : m.getFellesBarn().stream()));
+    Stream.concat(Stream.of(familierespons.getPerson()), relasjoner).filter(Objects::nonNull).filter(f -> !StringUtils.isEmpty(f.getIdent()))
+        .forEach(f -> familiemedlemPerIdent.putIfAbsent(f.getIdent(), f));
+  }
+
+  public static Familiekontekst av(HentFamilieRespons familierespons) {
+    return new Familiekontekst(familierespons);
+  }
+
+  public Optional<Familiemedlem> hente(String personident) {
+    return Optional.ofNullable(familiemedlemPerIdent.get(personident));
+  }
+
+  public Optional<LocalDate> henteFødselsdato(String personident) {
+    return hente(personident).map(Familiemedlem::getFoedselsdato).or(() -> Optional.ofNullable(supplerteFødselsdatoer.get(personident)));
+  }
+
+  /**
+   * Legger til fødselsdato fra personinfo for personer som mangler fødselsdato i familieresponsen.
+   */
+  public void supplereFødselsdatoer(Map<String, LocalDate> fødselsdatoer) {
+    supplerteFødselsdatoer.putAll(fødselsdatoer);
+  }
+
+  /**
+   * Personidentene i konteksten som har registrert fødselsdato.
+   */
+  public Set<String> henteIdenterMedFødselsdato(Set<String> personidenter) {
+    return personidenter.stream().filter(p -> henteFødselsdato(p).isPresent()).collect(Collectors.toSet());
+  }
+
+  public boolean erOver15År(String personident) {
+    return henteFødselsdato(personident).map(f -> f.isBefore(LocalDate.now().minusYears(15))).orElse(false);
+  }
+}
@@ -1,16 +1,20 @@
 package no.nav.bidrag.reisekostnad.tjeneste.støtte;
 
-import java.security.InvalidAlgorithmParameterException;
-import java.security.InvalidKeyException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.NoSuchAlgorithmException;
-import java.security.SecureRandom;
 import java.security.spec.InvalidKeySpecException;
-import java.security.spec.KeySpec;
+import java.util.Arrays;
 import java.util.Base64;
-import javax.crypto.BadPaddingException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
 import javax.crypto.Cipher;
-import javax.crypto.IllegalBlockSizeException;
-import javax.crypto.NoSuchPaddingException;
 import javax.crypto.SecretKey;
 import javax.crypto.SecretKeyFactory;
 import javax.crypto.spec.IvParameterSpec;
@@ -18,9 +22,14 @@ import javax.crypto.spec.PBEKeySpec;
 import javax.crypto.spec.SecretKeySpec;
 import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
 import no.nav.bidrag.reisekostnad.feilhåndtering.InternFeil;
-import org.hibernate.validator.HibernateValidator;
 import org.springframework.stereotype.Component;
 
+/**
+ * Krypterer og dekrypterer personidenter som sendes til og fra frontend.
+ * <p>
+ * Nøkkelen utledes med PBKDF2 (65 536 runder), og er derfor dyr å lage. Den utledes én gang per nøkkelversjon og holdes i minnet. Initialiserte
+ * Cipher-instanser gjenbrukes via en pool per modus, siden Cipher ikke er trådsikker. Formatet på krypterte strenger er uendret.
+ */
 @Component
 public class Krypteringsverktøy {
 
@@ -32,46 +41,143 @@ public class Krypteringsverktøy {
 
   private static final String PASSORD = "The owls Are N0T what tHey seeM";
 
-  static String password = "baeldung";
-  static String salt = "12345678";
+  private static final Queue<Cipher> LEDIGE_KRYPTERINGSCHIFFER = new ConcurrentLinkedQueue<>();
+  private static final Queue<Cipher> LEDIGE_DEKRYPTERINGSCHIFFER = new ConcurrentLinkedQueue<>();
+
+  /**
+   * Samlinger med minst så mange elementer fordeles på flere kjerner.
+   */
+  static final int TERSKEL_PARALLELL_BEHANDLING = 512;
 
   public static String kryptere(String ikkeKryptertStreng) {
+    var cipher = låneCipher(Cipher.ENCRYPT_MODE, LEDIGE_KRYPTERINGSCHIFFER);
     try {
-      var cipher = Cipher.getInstance(TRANSFORMERINGSALGORITME);
-      cipher.init(Cipher.ENCRYPT_MODE, henteHemmeligNøkkel(), generereIv());
-      return Base64.getEncoder().encodeToString(cipher.doFinal(ikkeKryptertStreng.getBytes()));
-    } catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidAlgorithmParameterException | InvalidKeyException | BadPaddingException |
-             IllegalBlockSizeException e) {
+      var kryptertStreng = Base64.getEncoder().encodeToString(cipher.doFinal(ikkeKryptertStreng.getBytes()));
+      LEDIGE_KRYPTERINGSCHIFFER.offer(cipher);
+      return kryptertStreng;
+    } catch (GeneralSecurityException e) {
       e.printStackTrace();
       throw new InternFeil(Feilkode.KRYPTERING, e);
     }
   }
 
   public static String dekryptere(String kryptertStreng) {
+    var cipher = låneCipher(Cipher.DECRYPT_MODE, LEDIGE_DEKRYPTERINGSCHIFFER);
+    try {
+      var dekryptertStreng = new String(cipher.doFinal(Base64.getDecoder().decode(kryptertStreng)));
+      LEDIGE_DEKRYPTERINGSCHIFFER.offer(cipher);
+      return dekryptertStreng;
+    } catch (GeneralSecurityException e) {
+      e.printStackTrace();
+      throw new InternFeil(Feilkode.KRYPTERING, e);
+    }
+  }
+
+  /**
+   * Krypterer alle strengene i samlingen. Resultatet har samme rekkefølge som samlingen, og null-verdier videreføres som null.
+   */
+  public static List<String> kryptereAlle(Collection<String> ikkeKrypterteStrenger) {
+    return behandleAlle(ikkeKrypterteStrenger, Cipher.ENCRYPT_MODE, LEDIGE_KRYPTERINGSCHIFFER);
+  }
+
+  /**
+   * Dekrypterer alle strengene i samlingen. Resultatet har samme rekkefølge som samlingen, og null-verdier videreføres som null.
+   */
+  public static List<String> dekryptereAlle(Collection<String> krypterteStrenger) {
+    return behandleAlle(krypterteStrenger, Cipher.DECRYPT_MODE, LEDIGE_DEKRYPTERINGSCHIFFER);
+  }
+
+  private static List<String> behandleAlle(Collection<String> strenger, int modus, Queue<Cipher> ledigeChiffer) {
+    var inndata = strenger.toArray(String[]::new);
+    var utdata = new String[inndata.length];
+
+    if (inndata.length < TERSKEL_PARALLELL_BEHANDLING) {
+      behandleDel(inndata, utdata, 0, inndata.length, modus, ledigeChiffer);
+    } else {
+      var antallDeler = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+      var størrelsePerDel = (inndata.length + antallDeler - 1) / antallDeler;
+      IntStream.range(0, antallDeler).parallel().forEach(del -> behandleDel(inndata, utdata, del * størrelsePerDel,
+          Math.min(inndata.length, (del + 1) * størrelsePerDel), modus, ledigeChiffer));
+    }
+
+    return Collections.unmodifiableList(Arrays.asList(utdata));
+  }
+
+  /**
+   * Behandler elementene fra og med fra til (men ikke med) til med én og samme Cipher. Utdata fra Cipher skrives til en buffer som gjenbrukes
+   * for hele delen.
+   */
+  private static void behandleDel(String[] inndata, String[] utdata, int fra, int til, int modus, Queue<Cipher> ledigeChiffer) {
+    if (fra >= til) {
+      return;
+    }
+
+    var cipher = låneCipher(modus, ledigeChiffer);
+    var buffer = new byte[0];
     try {
-      var cipher = Cipher.getInstance(TRANSFORMERINGSALGORITME);
-      cipher.init(Cipher.DECRYPT_MODE, henteHemmeligNøkkel(), generereIv());
-      return new String(cipher.doFinal(Base64.getDecoder().decode(kryptertStreng)));
-    } catch (NoSuchPaddingException | NoSuchAlgorithmException | InvalidAlgorithmParameterException | InvalidKeyException | BadPaddingException |
-             IllegalBlockSizeException e) {
+      for (int i = fra; i < til; i++) {
+        if (inndata[i] == null) {
+          continue;
+        }
+        var bytes = modus == Cipher.ENCRYPT_MODE ? inndata[i].getBytes() : Base64.getDecoder().decode(inndata[i]);
+        if (buffer.length < cipher.getOutputSize(bytes.length)) {
+          buffer = new byte[cipher.getOutputSize(bytes.length)];
+        }
+        var lengde = cipher.doFinal(bytes, 0, bytes.length, buffer, 0);
+        utdata[i] = modus == Cipher.ENCRYPT_MODE
+            ? new String(Base64.getEncoder().encode(ByteBuffer.wrap(buffer, 0, lengde)).array(), StandardCharsets.ISO_8859_1)
+            : new String(buffer, 0, lengde);
+      }
+      ledigeChiffer.offer(cipher);
+    } catch (GeneralSecurityException e) {
+      e.printStackTrace();
+      throw new InternFeil(Feilkode.KRYPTERING, e);
+    }
+  }
+
+  /**
+   * Henter en ferdig initialisert Cipher fra poolen, eller lager en ny om poolen er tom. Cipher nullstilles til tilstanden fra init etter
+   * doFinal, og kan derfor legges tilbake uten ny initialisering. Cipher som har feilet legges ikke tilbake.
+   */
+  private static Cipher låneCipher(int modus, Queue<Cipher> ledigeChiffer) {
+    var cipher = ledigeChiffer.poll();
+    if (cipher != null) {
+      return cipher;
+    }
+    try {
+      cipher = Cipher.getInstance(TRANSFORMERINGSALGORITME);
+      cipher.init(modus, Nøkkelversjon.GJELDENDE.hemmeligNøkkel, generereIv());
+      return cipher;
+    } catch (GeneralSecurityException e) {
       e.printStackTrace();
       throw new InternFeil(Feilkode.KRYPTERING, e);
     }
   }
 
   private static IvParameterSpec generereIv() {
-    var bytes = new byte[16];
-    bytes = "bW2IK20bbZ_UW-CV".getBytes();
-    return new IvParameterSpec(bytes);
+    return new IvParameterSpec("bW2IK20bbZ_UW-CV".getBytes());
   }
 
-  private static SecretKey henteHemmeligNøkkel() {
+  private static SecretKey utledeHemmeligNøkkel(String passord, String salt) {
     try {
       var factory = SecretKeyFactory.getInstance(KRYPTERINGSALGORITME);
-      var spec = new PBEKeySpec(PASSORD.toCharArray(), KRYPTERINGSSALT.getBytes(), 65536, 256);
+      var spec = new PBEKeySpec(passord.toCharArray(), salt.getBytes(), 65536, 256);
       return new SecretKeySpec(factory.generateSecret(spec).getEncoded(), ALGORITME_ADVANECD_EMCRYPTION_STANDARD);
     } catch (NoSuchAlgorithmException | InvalidKeySpecException e) {
       throw new InternFeil(Feilkode.KRYPTERING, e);
     }
   }
+
+  /**
+   * Nøkkelen utledes første gang versjonen tas i bruk, og gjenbrukes deretter.
+   */
+  private enum Nøkkelversjon {
+    GJELDENDE(PASSORD, KRYPTERINGSSALT);
+
+    private final SecretKey hemmeligNøkkel;
+
+    Nøkkelversjon(String passord, String salt) {
+      this.hemmeligNøkkel = utledeHemmeligNøkkel(passord, salt);
+    }
+  }
 }
@@ -8,67 +8,75 @@ import no.nav.bidrag.reisekostnad.api.dto.ut.MotpartDto;
 import no.nav.bidrag.reisekostnad.api.dto.ut.PersonDto;
 import no.nav.bidrag.reisekostnad.database.dao.ForespørselDao;
 import no.nav.bidrag.reisekostnad.database.datamodell.Barn;
-import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel;
-import no.nav.bidrag.reisekostnad.database.datamodell.Person;
-import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.BidragPersonkonsument;
+import no.nav.bidrag.reisekostnad.database.lesemodell.Forespørselsrad;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.Personlaster;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Diskresjonskode;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Familiemedlem;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentFamilieRespons;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentPersoninfoRespons;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.MotpartBarnRelasjon;
 import no.nav.bidrag.reisekostnad.konfigurasjon.Applikasjonskonfig;
 import org.apache.commons.lang3.StringUtils;
-import org.modelmapper.Converter;
-import org.modelmapper.ModelMapper;
-import org.modelmapper.config.Configuration;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
-
-import static no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.BidragPersonkonsument.FORMAT_FØDSELSDATO;
+import java.util.stream.Stream;
 
 @Slf4j
 @Component
 public class Mapper {
 
-    private ModelMapper modelMapper = new ModelMapper();
     private ForespørselDao forespørselDao;
-    private BidragPersonkonsument bidragPersonkonsument;
+    private Personlaster personlaster;
 
     @Autowired
-    public Mapper(BidragPersonkonsument bidragPersonkonsument, ForespørselDao forespørselDao) {
-        this.bidragPersonkonsument = bidragPersonkonsument;
+    public Mapper(Personlaster personlaster, ForespørselDao forespørselDao) {
+        this.personlaster = personlaster;
         this.forespørselDao = forespørselDao;
-        this.modelMapper.getConfiguration().setFieldMatchingEnabled(true).setFieldAccessLevel(Configuration.AccessLevel.PRIVATE);
-        oppretteTypeMaps();
     }
 
-    private void oppretteTypeMaps() {
-        this.modelMapper.createTypeMap(Familiemedlem.class, PersonDto.class);
-        this.modelMapper.createTypeMap(Forespørsel.class, ForespørselDto.class);
-        this.modelMapper.createTypeMap(ForespørselDto.class, Forespørsel.class);
-        this.modelMapper.createTypeMap(Person.class, PersonDto.class);
+    public BrukerinformasjonDto tilDto(HentFamilieRespons familieRespons) {
+        return tilDto(familieRespons, henteSynligeForespørsler(familieRespons.getPerson().getIdent()));
     }
 
-    public BrukerinformasjonDto tilDto(HentFamilieRespons familieRespons) {
-        var forespørslerHvorPersonErHovedpart = forespørselDao.henteSynligeForespørslerForHovedpart(familieRespons.getPerson().getIdent(),
-                henteGrenseForSisteEndring());
-        var forespørslerHvorPersonErMotpart = forespørselDao.henteSynligeForespørslerForMotpart(familieRespons.getPerson().getIdent(),
-                henteGrenseForSisteEndring());
+    /**
+     * Mapper brukerinformasjon fra forespørselsrader som allerede er lest, slik at kallet mot bidrag-person og databaseoppslaget kan gjøres
+     * parallelt. Personinfo for alle partene i forespørslene hentes samlet.
+     */
+    public BrukerinformasjonDto tilDto(HentFamilieRespons familieRespons, List<Forespørselsrad> forespørselsrader) {
+        var personident = familieRespons.getPerson().getIdent();
+        var personinfo = personlaster.hente(henteIdenter(forespørselsrader));
+
+        var forespørslerHvorPersonErHovedpart = new HashSet<ForespørselDto>();
+        var forespørslerHvorPersonErMotpart = new HashSet<ForespørselDto>();
+        forespørselsrader.stream().collect(Collectors.groupingBy(Forespørselsrad::id, LinkedHashMap::new, Collectors.toList())).values().forEach(rader -> {
+            var forespørsel = tilForespørselDto(rader, personinfo);
+            if (personident.equals(rader.get(0).personidentHovedpart())) {
+                forespørslerHvorPersonErHovedpart.add(forespørsel);
+            }
+            if (personident.equals(rader.get(0).personidentMotpart())) {
+                forespørslerHvorPersonErMotpart.add(forespørsel);
+            }
+        });
 
         var hovedpersonHarDiskresjon = Diskresjonskode.harDiskresjon(familieRespons.getPerson());
         var familierUtenDiskresjon = henteMotpartBarnRelasjonerSomIkkeHarDiskresjon(familieRespons);
         var familierUtenDiskresjonDødEllerUkjentMotpart = familierUtenDiskresjon.stream().filter(Objects::nonNull)
                 .filter(m -> erIkkeDød(m.getMotpart())).filter(this::motpartErKjent).collect(Collectors.toSet());
 
-        return BrukerinformasjonDto.builder()
+        var brukerinformasjon = BrukerinformasjonDto.builder()
                 .fornavn(familieRespons.getPerson().getFornavn())
                 .harDiskresjon(hovedpersonHarDiskresjon)
                 .kjønn(familieRespons.getPerson().getKjoenn())
@@ -76,27 +84,67 @@ public class Mapper {
                         familierUtenDiskresjon.size() < familieRespons.getPersonensMotpartBarnRelasjon().size())
                 .kanSøkeOmFordelingAvReisekostnader(!hovedpersonHarDiskresjon && personHarDeltForeldreansvar(familierUtenDiskresjonDødEllerUkjentMotpart))
                 .barnMinstFemtenÅr(hovedpersonHarDiskresjon ? new HashSet<>() : henteBarnOverFemtenÅrMedKjentMotpart(familierUtenDiskresjonDødEllerUkjentMotpart))
-                .forespørslerSomHovedpart(tilForespørselDto(forespørslerHvorPersonErHovedpart))
-                .forespørslerSomMotpart(tilForespørselDto(forespørslerHvorPersonErMotpart))
+                .forespørslerSomHovedpart(forespørslerHvorPersonErHovedpart)
+                .forespørslerSomMotpart(forespørslerHvorPersonErMotpart)
                 .motparterMedFellesBarnUnderFemtenÅr(
                         hovedpersonHarDiskresjon ? new HashSet<>() : filtrereUtMotparterMedFellesBarnUnderFemtenÅr(familierUtenDiskresjonDødEllerUkjentMotpart))
                 .build();
+
+        kryptereIdenter(brukerinformasjon);
+        return brukerinformasjon;
     }
 
-    private LocalDateTime henteGrenseForSisteEndring() {
-        return LocalDate.now().minusDays(Applikasjonskonfig.FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING + 1).atStartOfDay();
+    /**
+     * Krypterer identene til alle personene i responsen med ett kall mot krypteringsverktøyet.
+     */
+    private void kryptereIdenter(BrukerinformasjonDto brukerinformasjon) {
+        var personer = new ArrayList<PersonDto>(brukerinformasjon.getBarnMinstFemtenÅr());
+        brukerinformasjon.getMotparterMedFellesBarnUnderFemtenÅr().forEach(m -> {
+            personer.add(m.getMotpart());
+            personer.addAll(m.getFellesBarnUnder15År());
+        });
+        Stream.concat(brukerinformasjon.getForespørslerSomHovedpart().stream(), brukerinformasjon.getForespørslerSomMotpart().stream()).forEach(f -> {
+            personer.add(f.getHovedpart());
+            personer.add(f.getMotpart());
+            personer.addAll(f.getBarn());
+        });
+        kryptereIdenter(personer);
     }
 
-    private PersonDto tilDto(Familiemedlem familiemedlem) {
+    private void kryptereIdenter(List<PersonDto> personer) {
+        var personerMedIdent = personer.stream().filter(Objects::nonNull).filter(p -> p.getIdent() != null).distinct().toList();
+        var identer = personerMedIdent.stream().map(PersonDto::getIdent).distinct().toList();
+        var krypterteIdenter = Krypteringsverktøy.kryptereAlle(identer);
 
-        var egenskapmapper = modelMapper.getTypeMap(Familiemedlem.class, PersonDto.class);
+        var kryptertIdentPerIdent = new HashMap<String, String>();
+        for (int i = 0; i < identer.size(); i++) {
+            kryptertIdentPerIdent.put(identer.get(i), krypterteIdenter.get(i));
+        }
+        personerMedIdent.forEach(p -> p.setIdent(kryptertIdentPerIdent.get(p.getIdent())));
+    }
 
-        Converter<String, String> konverterePersonident = ident -> ident.getSource() == null ? null : kryptere(ident.getSource());
+    /**
+     * Leser forespørslene der personen er hovedpart eller motpart med én spørring. Synlighetsregelen håndheves i spørringen.
+     */
+    public List<Forespørselsrad> henteSynligeForespørsler(String personident) {
+        return forespørselDao.henteSynligeForespørselsraderForPart(personident, henteGrenseForSisteEndring());
+    }
 
-        egenskapmapper.addMappings(mapper -> mapper.using(konverterePersonident).map(Familiemedlem::getIdent, PersonDto::setIdent));
-        egenskapmapper.addMappings(mapper -> mapper.map(Familiemedlem::getFoedselsdato, PersonDto::setFødselsdato));
+    private static Set<String> henteIdenter(List<Forespørselsrad> forespørselsrader) {
+        return forespørselsrader.stream().flatMap(r -> Stream.of(r.personidentHovedpart(), r.personidentMotpart(), r.personidentBarn()))
+                .filter(Objects::nonNull).collect(Collectors.toSet());
+    }
 
-        return modelMapper.map(familiemedlem, PersonDto.class);
+    private LocalDateTime henteGrenseForSisteEndring() {
+        return LocalDate.now().minusDays(Applikasjonskonfig.FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING + 1).atStartOfDay();
+    }
+
+    /**
+     * Identen krypteres ikke her, men samlet for hele responsen i {@link #kryptereIdenter(BrukerinformasjonDto)}. Familieresponsen har ikke
+     * kortnavn.
+     */
+    private PersonDto tilDto(Familiemedlem familiemedlem) {
+        return new PersonDto(familiemedlem.getIdent(), familiemedlem.getFornavn(), null, familiemedlem.getFoedselsdato());
     }
 
     /**
@@ -179,52 +227,62 @@ public class Mapper {
         return barn.stream().filter(Objects::nonNull).filter(this::erUnderFemtenÅr).filter(this::erIkkeDød).map(this::tilDto).collect(Collectors.toSet());
     }
 
-    private Set<ForespørselDto> tilForespørselDto(Set<Forespørsel> forespørsler) {
-
-        for (Forespørsel f : forespørsler) {
-            var t = tilForespørselDto(f);
-            assert (true);
-        }
-
-        return forespørsler.stream().filter(Objects::nonNull).map(this::tilForespørselDto).collect(Collectors.toSet());
-    }
-
-    private ForespørselDto tilForespørselDto(Forespørsel forespørsel) {
-        var forespørselmapper = modelMapper.getTypeMap(Forespørsel.class, ForespørselDto.class);
-
-        Converter<String, LocalDate> konvertereDatostreng = d -> d.getSource() == null ? null
-                : LocalDate.parse(d.getSource(), DateTimeFormatter.ofPattern(FORMAT_FØDSELSDATO));
-
-        Converter<Person, PersonDto> tilPersonDto = context -> tilPersonDto(context.getSource().getPersonident());
-        Converter<Set<Person>, Set<PersonDto>> tilPersonDtoSet = context -> context.getSource().stream()
-                .map(element -> tilPersonDto(element.getPersonident())).collect(Collectors.toSet());
-
-        forespørselmapper.addMappings(mapper -> mapper.using(konvertereDatostreng).map(Forespørsel::getHovedpart, ForespørselDto::setHovedpart));
-        forespørselmapper.addMappings(mapper -> mapper.using(konvertereDatostreng).map(Forespørsel::getMotpart, ForespørselDto::setMotpart));
-
-        forespørselmapper.addMappings(mapper -> mapper.using(tilPersonDto).map(Forespørsel::getHovedpart, ForespørselDto::setHovedpart));
-        forespørselmapper.addMappings(mapper -> mapper.using(tilPersonDto).map(Forespørsel::getMotpart, ForespørselDto::setMotpart));
-        forespørselmapper.addMappings(mapper -> mapper.using(tilPersonDtoSet).map(Forespørsel::getBarn, ForespørselDto::setBarn));
-
-        return modelMapper.map(forespørsel, ForespørselDto.class);
+    /**
+     * Radene tilhører samme forespørsel, med ett barn per rad. Forespørselen mappes én gang fra personinfo som er hentet på forhånd, og
+     * identene krypteres samlet etterpå.
+     */
+    private ForespørselDto tilForespørselDto(List<Forespørselsrad> rader, Map<String, HentPersoninfoRespons> personinfo) {
+        var forespørsel = rader.get(0);
+        return ForespørselDto.builder()
+                .id(forespørsel.id())
+                .kreverSamtykke(forespørsel.kreverSamtykke())
+                .hovedpart(tilPersonDtoMedUkryptertIdent(forespørsel.personidentHovedpart(), personinfo))
+                .motpart(tilPersonDtoMedUkryptertIdent(forespørsel.personidentMotpart(), personinfo))
+                .barn(rader.stream().map(Forespørselsrad::personidentBarn).filter(Objects::nonNull).distinct()
+                        .map(b -> tilPersonDtoMedUkryptertIdent(b, personinfo)).collect(Collectors.toSet()))
+                .opprettet(forespørsel.opprettet())
+                .samtykket(forespørsel.samtykket())
+                .samtykkefrist(forespørsel.samtykkefrist())
+                .journalført(forespørsel.journalført())
+                .deaktivert(forespørsel.deaktivert())
+                .deaktivertAv(forespørsel.deaktivertAv())
+                .build();
     }
 
     public Set<Barn> tilEntitet(Set<String> personidenterBarn) {
-        return personidenterBarn.stream().filter(Objects::nonNull).filter(s -> !s.isEmpty())
-                .map(personident -> Barn.builder().personident(personident).fødselsdato(hentBarnFødselsdato(personident)).build()).collect(Collectors.toSet());
+        var personinfo = personlaster.hente(personidenterBarn);
+        return personinfo.entrySet().stream()
+                .map(barn -> Barn.builder().personident(barn.getKey()).fødselsdato(barn.getValue().getFoedselsdato()).build()).collect(Collectors.toSet());
     }
 
-    public PersonDto tilPersonDto(String personident) {
-        var personinfo = bidragPersonkonsument.hentPersoninfo(personident);
-        return new PersonDto(kryptere(personident), personinfo.getFornavn(), personinfo.getKortnavn(), personinfo.getFoedselsdato());
+    /**
+     * Fødselsdato hentes fra familiekonteksten. Personinfo hentes kun for barn som mangler fødselsdato i familieresponsen.
+     */
+    public Set<Barn> tilEntitet(Set<String> personidenterBarn, Familiekontekst familiekontekst) {
+        var barnMedFødselsdato = familiekontekst.henteIdenterMedFødselsdato(personidenterBarn);
+        var barn = barnMedFødselsdato.stream()
+                .map(personident -> Barn.builder().personident(personident).fødselsdato(familiekontekst.henteFødselsdato(personident).get()).build())
+                .collect(Collectors.toSet());
+        var barnUtenFødselsdato = personidenterBarn.stream().filter(p -> !barnMedFødselsdato.contains(p)).collect(Collectors.toSet());
+        if (!barnUtenFødselsdato.isEmpty()) {
+            barn.addAll(tilEntitet(barnUtenFødselsdato));
+        }
+        return barn;
     }
 
-    private LocalDate hentBarnFødselsdato(String personIdent) {
-        var barn = bidragPersonkonsument.hentPersoninfo(personIdent);
-        return barn.getFoedselsdato();
+    /**
+     * Henter personinfo for alle personene med ett samlet oppslag. Nøkkelen er ukryptert personident, mens identen i PersonDto er kryptert.
+     */
+    public Map<String, PersonDto> tilPersonDto(Collection<String> personidenter) {
+        var personinfo = personlaster.hente(personidenter);
+        var personer = new HashMap<String, PersonDto>();
+        personinfo.keySet().forEach(personident -> personer.put(personident, tilPersonDtoMedUkryptertIdent(personident, personinfo)));
+        kryptereIdenter(new ArrayList<>(personer.values()));
+        return personer;
     }
 
-    private String kryptere(String ukryptertPersonident) {
-        return Krypteringsverktøy.kryptere(ukryptertPersonident);
+    private PersonDto tilPersonDtoMedUkryptertIdent(String personident, Map<String, HentPersoninfoRespons> personinfo) {
+        var respons = personinfo.get(personident);
+        return new PersonDto(personident, respons.getFornavn(), respons.getKortnavn(), respons.getFoedselsdato());
     }
 }
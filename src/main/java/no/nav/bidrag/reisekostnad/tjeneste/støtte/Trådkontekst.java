@@ -0,0 +1,50 @@
+package no.nav.bidrag.reisekostnad.tjeneste.støtte;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+import org.slf4j.MDC;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * Starter oppgaver i andre tråder med forespørselskonteksten og MDC-en til kallende tråd. Tokenet til pålogget person, cachenøkler per bruker og
+ * korrelasjonsid leses fra trådbundne verdier, og må derfor følge med når et kall mot API-et deles opp i parallelle oppslag. Kallende tråd må
+ * vente på oppgavene før forespørselen avsluttes.
+ */
+public final class Trådkontekst {
+
+  private Trådkontekst() {
+  }
+
+  public static <T> CompletableFuture<T> starte(Supplier<T> oppgave, Executor utfører) {
+    var forespørselsattributter = RequestContextHolder.getRequestAttributes();
+    var mdc = MDC.getCopyOfContextMap();
+    return CompletableFuture.supplyAsync(() -> {
+      RequestContextHolder.setRequestAttributes(forespørselsattributter);
+      if (mdc != null) {
+        MDC.setContextMap(mdc);
+      }
+      try {
+        return oppgave.get();
+      } finally {
+        RequestContextHolder.resetRequestAttributes();
+        MDC.clear();
+      }
+    }, utfører);
+  }
+
+  /**
+   * Venter på oppgaven og kaster feilen den eventuelt feilet med, slik at feilhåndteringen blir den samme som ved sekvensielle kall.
+   */
+  public static <T> T vente(CompletableFuture<T> oppgave) {
+    try {
+      return oppgave.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException feil) {
+        throw feil;
+      }
+      throw e;
+    }
+  }
+}
@@ -0,0 +1,31 @@
+-- Table: arkiveringsbestilling
+
+-- DROP TABLE arkiveringsbestilling;
+
+CREATE TABLE arkiveringsbestilling
+(
+    id integer NOT NULL GENERATED BY DEFAULT AS IDENTITY ( INCREMENT 1 START 1 MINVALUE 1 MAXVALUE 2147483647 CACHE 1 ),
+    forespørsel_id integer NOT NULL,
+    opprettet timestamp without time zone,
+    tilgjengelig_fra timestamp without time zone NOT NULL,
+    antall_forsøk integer NOT NULL DEFAULT 0,
+    ferdigstilt timestamp without time zone,
+    CONSTRAINT arkiveringsbestilling_pkey PRIMARY KEY (id),
+    CONSTRAINT fk_forespørsel_id FOREIGN KEY (forespørsel_id)
+        REFERENCES forespørsel (id) MATCH SIMPLE
+        ON UPDATE NO ACTION
+        ON DELETE NO ACTION
+)
+
+TABLESPACE pg_default;
+
+CREATE INDEX idx_arkiveringsbestilling_ikke_ferdigstilt ON arkiveringsbestilling (tilgjengelig_fra) WHERE ferdigstilt IS NULL;
+CREATE INDEX idx_arkiveringsbestilling_forespørsel_id ON arkiveringsbestilling (forespørsel_id);
+
+-- Bestiller arkivering av forespørsler som allerede er klare for innsending
+INSERT INTO arkiveringsbestilling (forespørsel_id, opprettet, tilgjengelig_fra)
+SELECT id, now(), now()
+FROM forespørsel
+WHERE deaktivert IS NULL
+  AND journalført IS NULL
+  AND (samtykket IS NOT NULL OR krever_samtykke = false);
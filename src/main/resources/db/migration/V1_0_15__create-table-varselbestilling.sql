@@ -0,0 +1,27 @@
+-- Table: varselbestilling
+
+-- DROP TABLE varselbestilling;
+
+CREATE TABLE varselbestilling
+(
+    id integer NOT NULL GENERATED BY DEFAULT AS IDENTITY ( INCREMENT 1 START 1 MINVALUE 1 MAXVALUE 2147483647 CACHE 1 ),
+    type varchar(20) NOT NULL,
+    event_id varchar(255) NOT NULL,
+    personident varchar(255),
+    tekst varchar(500),
+    lenke varchar(500),
+    ekstern_varsling boolean NOT NULL DEFAULT false,
+    sikkerhetsnivå integer NOT NULL DEFAULT 0,
+    synlig_frem_til timestamp without time zone,
+    opprettet timestamp without time zone,
+    tilgjengelig_fra timestamp without time zone NOT NULL,
+    antall_forsøk integer NOT NULL DEFAULT 0,
+    sendt timestamp without time zone,
+    CONSTRAINT varselbestilling_pkey PRIMARY KEY (id),
+    -- En ferdigmelding har samme eventId som oppgaven den ferdigstiller
+    CONSTRAINT uk_varselbestilling_type_event_id UNIQUE (type, event_id)
+)
+
+TABLESPACE pg_default;
+
+CREATE INDEX idx_varselbestilling_ikke_sendt ON varselbestilling (tilgjengelig_fra) WHERE sendt IS NULL;
@@ -0,0 +1,46 @@
+-- Indekser for spørringene i ForespørselDao, BarnDao og OppgavebestillingDao
+
+/*
+    DROP INDEX idx_forespørsel_hovedpart_id;
+    DROP INDEX idx_forespørsel_motpart_id;
+    DROP INDEX idx_forespørsel_aktiv_id_opprettet;
+    DROP INDEX idx_forespørsel_ikke_journalført;
+    DROP INDEX idx_forespørsel_venter_på_samtykke;
+    DROP INDEX idx_forespørsel_deaktivert;
+    DROP INDEX idx_barn_forespørsel_id_fødselsdato;
+    DROP INDEX idx_barn_personident;
+    DROP INDEX idx_oppgavebestilling_forespørsel_id_ikke_ferdigstilt;
+    DROP INDEX idx_oppgavebestilling_forelder_id;
+ */
+
+-- Forespørsler per part (henteSynligeForespørselsraderForPart, henteForespørslerForHovedpart/Motpart, henteIdenterTilknyttetForespørselTilPart,
+-- fjerneHovedparter/Motparter)
+CREATE INDEX idx_forespørsel_hovedpart_id ON forespørsel (hovedpart_id);
+CREATE INDEX idx_forespørsel_motpart_id ON forespørsel (motpart_id);
+
+-- Aktive forespørsler i id-rekkefølge etter sjekkpunkt, filtrert på opprettet (henteAktiveForespørslerOpprettetFør,
+-- henteAktiveForespørslerOpprettetEtter, henteIdTilAktiveJournalførteForespørsler). Opprettet ligger i indeksen slik at filteret sjekkes uten
+-- oppslag i tabellen.
+CREATE INDEX idx_forespørsel_aktiv_id_opprettet ON forespørsel (id, opprettet) WHERE deaktivert IS NULL;
+
+-- Aktive forespørsler som ikke er journalført (henteAktiveOgSamtykkedeForespørslerSomErKlareForInnsending,
+-- henteAktiveForespørslerSomIkkeKreverSamtykkOgErKlareForInnsending)
+CREATE INDEX idx_forespørsel_ikke_journalført ON forespørsel (id) WHERE deaktivert IS NULL AND journalført IS NULL;
+
+-- Aktive forespørsler som venter på samtykke (henteForespørslerSomKreverSamtykkeOgInneholderBarnFødtSammeDagEllerEtterDato)
+CREATE INDEX idx_forespørsel_venter_på_samtykke ON forespørsel (id) WHERE deaktivert IS NULL AND krever_samtykke = true AND samtykket IS NULL;
+
+-- Deaktiverte forespørsler i id-rekkefølge (henteIdTilForespørslerMedBarnSomSkalAnonymiseres)
+CREATE INDEX idx_forespørsel_deaktivert ON forespørsel (id, deaktivert) WHERE deaktivert IS NOT NULL;
+
+-- Barn per forespørsel, med fødselsdato for samtykkefristen
+CREATE INDEX idx_barn_forespørsel_id_fødselsdato ON barn (forespørsel_id, fødselsdato);
+
+-- Barn per personident (BarnDao.henteBarnTilknyttetAktivForespørsel)
+CREATE INDEX idx_barn_personident ON barn (personident) WHERE personident IS NOT NULL;
+
+-- Aktive oppgaver per forespørsel (henteAktiveOppgaver, henteAktiveOppgaverKnyttetTilDeaktiverteForespørsler)
+CREATE INDEX idx_oppgavebestilling_forespørsel_id_ikke_ferdigstilt ON oppgavebestilling (forespørsel_id) WHERE ferdigstilt IS NULL;
+
+-- Ferdigstilte oppgaver per forelder (fjerneForeldre)
+CREATE INDEX idx_oppgavebestilling_forelder_id ON oppgavebestilling (forelder_id);
@@ -0,0 +1,17 @@
+-- Table: jobbpartisjon
+
+-- DROP TABLE jobbpartisjon;
+
+CREATE TABLE jobbpartisjon
+(
+    jobb varchar(64) NOT NULL,
+    partisjon integer NOT NULL,
+    siste_id integer NOT NULL,
+    eier varchar(255),
+    leid_til timestamp without time zone,
+    fullført timestamp without time zone,
+    runde_startet timestamp without time zone,
+    CONSTRAINT jobbpartisjon_pkey PRIMARY KEY (jobb, partisjon)
+)
+
+TABLESPACE pg_default;
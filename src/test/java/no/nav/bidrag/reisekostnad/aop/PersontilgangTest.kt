@@ -0,0 +1,117 @@
+package no.nav.bidrag.reisekostnad.aop
+
+import io.mockk.every
+import io.mockk.mockk
+import io.mockk.mockkObject
+import io.mockk.unmockkObject
+import io.mockk.verify
+import no.nav.bidrag.reisekostnad.Testperson
+import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode
+import no.nav.bidrag.reisekostnad.feilhåndtering.Tilgangsfeil
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.BidragPersonkonsument
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Familiemedlem
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentFamilieRespons
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.MotpartBarnRelasjon
+import no.nav.bidrag.reisekostnad.konfigurasjon.Tokeninfo
+import no.nav.bidrag.reisekostnad.skedulering.DatabehandlerTest
+import org.assertj.core.api.Assertions.assertThatCode
+import org.assertj.core.api.Assertions.assertThatThrownBy
+import org.junit.jupiter.api.AfterEach
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import java.util.Optional
+
+@DisplayName("Persontilgang")
+class PersontilgangTest : DatabehandlerTest() {
+
+    private val bidragPersonkonsument = mockk<BidragPersonkonsument>()
+    private lateinit var persontilgang: Persontilgang
+
+    private val gråtass = Testperson.testpersonGråtass.ident
+    private val streng = Testperson.testpersonStreng.ident
+    private val barn10 = Testperson.testpersonBarn10.ident
+    private val barn16 = Testperson.testpersonBarn16.ident
+    private val ukjentPerson = "99999999999"
+
+    @BeforeEach
+    fun oppsett() {
+        persontilgang = Persontilgang(bidragPersonkonsument, databasetjeneste)
+        mockkObject(Tokeninfo.Companion)
+        every { Tokeninfo.erSystembruker() } returns false
+        every { Tokeninfo.hentPaaloggetPerson() } returns null
+    }
+
+    @AfterEach
+    fun rydde() {
+        unmockkObject(Tokeninfo.Companion)
+    }
+
+    @Test
+    fun skalNekteTilgangNårIngenPersonErPålogget() {
+
+        // hvis, så
+        assertThatThrownBy { persontilgang.kontrollere(barn10) }
+            .isInstanceOf(Tilgangsfeil::class.java)
+            .extracting("feilkode").isEqualTo(Feilkode.TILGANG_PERSON_NEKTET)
+        verify(exactly = 0) { bidragPersonkonsument.hentFamilie(any()) }
+    }
+
+    @Test
+    fun skalGiTilgangUtenPåloggetPersonNårOppgavenKjøresSomSystem() {
+
+        // hvis, så
+        assertThatCode { Persontilgang.somSystem { persontilgang.kontrollere(listOf(barn10, ukjentPerson)) } }.doesNotThrowAnyException()
+        assertThatThrownBy { persontilgang.kontrollere(barn10) }.isInstanceOf(Tilgangsfeil::class.java)
+    }
+
+    @Test
+    fun skalGiTilgangTilPersonerIForespørslerDerPåloggetPersonErPart() {
+
+        // gitt
+        forespørselDao.save(oppretteForespørsel())
+        every { Tokeninfo.hentPaaloggetPerson() } returns streng
+
+        // hvis, så
+        assertThatCode { persontilgang.kontrollere(listOf(gråtass, streng, barn10, barn16)) }.doesNotThrowAnyException()
+        verify(exactly = 0) { bidragPersonkonsument.hentFamilie(any()) }
+    }
+
+    @Test
+    fun skalGiTilgangTilFamilienMedEttOppslag() {
+
+        // gitt
+        every { Tokeninfo.hentPaaloggetPerson() } returns gråtass
+        every { bidragPersonkonsument.hentFamilie(gråtass) } returns Optional.of(familie(streng, barn10, barn16))
+
+        // hvis, så
+        assertThatCode { persontilgang.kontrollere(listOf(streng, barn10, barn16)) }.doesNotThrowAnyException()
+        verify(exactly = 1) { bidragPersonkonsument.hentFamilie(gråtass) }
+    }
+
+    @Test
+    fun skalNekteTilgangNårEnAvPersoneneVerkenErIForespørslerEllerFamilien() {
+
+        // gitt
+        forespørselDao.save(oppretteForespørsel())
+        every { Tokeninfo.hentPaaloggetPerson() } returns gråtass
+        every { bidragPersonkonsument.hentFamilie(gråtass) } returns Optional.of(familie(streng, barn10))
+
+        // hvis, så
+        assertThatThrownBy { persontilgang.kontrollere(listOf(streng, barn10, ukjentPerson)) }
+            .isInstanceOf(Tilgangsfeil::class.java)
+            .extracting("feilkode").isEqualTo(Feilkode.TILGANG_PERSON_NEKTET)
+        verify(exactly = 1) { bidragPersonkonsument.hentFamilie(gråtass) }
+    }
+
+    private fun familie(motpart: String, vararg fellesBarn: String) = HentFamilieRespons.builder()
+        .personensMotpartBarnRelasjon(
+            listOf(
+                MotpartBarnRelasjon.builder()
+                    .motpart(Familiemedlem.builder().ident(motpart).build())
+                    .fellesBarn(fellesBarn.map { Familiemedlem.builder().ident(it).build() })
+                    .build()
+            )
+        )
+        .build()
+}
@@ -22,6 +22,7 @@ import no.nav.bidrag.transport.dokument.OpprettJournalpostRequest;
 import no.nav.bidrag.reisekostnad.BidragReisekostnadApiTestapplikasjon;
 import no.nav.bidrag.reisekostnad.StubsKt;
 import no.nav.bidrag.reisekostnad.Testkonfig;
+import no.nav.bidrag.reisekostnad.database.dao.ArkiveringsbestillingDao;
 import no.nav.bidrag.reisekostnad.database.dao.BarnDao;
 import no.nav.bidrag.reisekostnad.database.dao.ForelderDao;
 import no.nav.bidrag.reisekostnad.database.dao.ForespørselDao;
@@ -29,6 +30,7 @@ import no.nav.bidrag.reisekostnad.database.datamodell.Barn;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forelder;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel;
 import no.nav.bidrag.reisekostnad.konfigurasjon.Profil;
+import no.nav.bidrag.reisekostnad.skedulering.Arkiveringsutsender;
 import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste;
 import no.nav.bidrag.reisekostnad.tjeneste.støtte.Mapper;
 import no.nav.security.mock.oauth2.MockOAuth2Server;
@@ -71,6 +73,8 @@ public class KontrollerTest {
   protected @Autowired BarnDao barnDao;
   protected @Autowired Mapper mapper;
   protected @Autowired Databasetjeneste databasetjeneste;
+  protected @Autowired ArkiveringsbestillingDao arkiveringsbestillingDao;
+  protected @Autowired Arkiveringsutsender arkiveringsutsender;
 
   protected static final String KONTROLLERKONTEKST = "/api/v1/reisekostnad";
   protected final static String ENDEPUNKT_BRUKERINFORMASJON = KONTROLLERKONTEKST + "/brukerinformasjon";
@@ -93,6 +97,7 @@ public class KontrollerTest {
   }
 
   private void sletteTestdata() {
+    arkiveringsbestillingDao.deleteAll();
     barnDao.deleteAll();
     forelderDao.deleteAll();
     forespørselDao.deleteAll();
@@ -234,6 +234,7 @@ public class OppretteForespørselOmFordelingAvReisekostnaderTest extends Kontrol
         Set.of(Krypteringsverktøy.kryptere(testpersonBarn16.getIdent()), Krypteringsverktøy.kryptere(testpersonBarn10.getIdent())));
 
     var responsOpprett = httpHeaderTestRestTemplateApi.exchange(urlNyForespørsel, HttpMethod.POST, initHttpEntity(nyForespørsel), Void.class);
+    arkiveringsutsender.sende();
 
     var brukerinformasjon = httpHeaderTestRestTemplateApi.exchange(urlBrukerinformasjon, HttpMethod.GET, initHttpEntity(null),
         BrukerinformasjonDto.class);
@@ -306,6 +307,7 @@ public class OppretteForespørselOmFordelingAvReisekostnaderTest extends Kontrol
     var samtykkeRespons = httpHeaderTestRestTemplateApi.exchange(urlSamtykkeForespørsel + "?id=" + forespørselIdUnder15år, HttpMethod.PUT,
         initHttpEntity(null), Void.class);
     assertThat(samtykkeRespons.getStatusCode()).isEqualTo(HttpStatus.OK);
+    arkiveringsutsender.sende();
 
     // Pålogget som hovedperson
     initTokenForPåloggetPerson(hovedPerson.getIdent());
@@ -349,6 +351,7 @@ public class OppretteForespørselOmFordelingAvReisekostnaderTest extends Kontrol
     try {
       var responsOpprett = httpHeaderTestRestTemplateApi.exchange(urlNyForespørsel, HttpMethod.POST, initHttpEntity(nyForespørsel), Void.class);
       assertThat(responsOpprett.getStatusCode()).isEqualTo(HttpStatus.CREATED);
+      arkiveringsutsender.sende();
     } finally {
       WireMock.removeStub(stub);
     }
@@ -43,6 +43,25 @@ public class PdfGeneratorTest {
     );
   }
 
+  @Test
+  void skalOpprettePdfFraSammeMalFlereGanger() {
+
+    // gitt
+    var barn = Set.of(new PersonDto(Krypteringsverktøy.kryptere("00087324682"), "Sandstrand", "Sandstrand", LocalDate.now().minusMonths(126)));
+    var hovedpart = new PersonDto(Krypteringsverktøy.kryptere("65987374687"), "Parkas", "Parkas", LocalDate.now().minusMonths(465));
+    var motpart = new PersonDto(Krypteringsverktøy.kryptere("45987324687"), "Bonjour", "Bonjour", LocalDate.now().minusMonths(512));
+
+    // hvis
+    var førstePdf = PdfGenerator.genererePdf(barn, hovedpart, motpart, LocalDateTime.now());
+    var andrePdf = PdfGenerator.genererePdf(barn, hovedpart, motpart, null);
+
+    // så
+    assertAll(
+        () -> assertThat(førstePdf).isNotEmpty(),
+        () -> assertThat(andrePdf).isNotEmpty()
+    );
+  }
+
   private void skriveUtPdfForInspeksjon(byte[] pdfstroem) {
     try (final FileOutputStream filstroem = new FileOutputStream("forespørsel.pdf")) {
       filstroem.write(pdfstroem);
@@ -0,0 +1,74 @@
+package no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import no.nav.bidrag.reisekostnad.api.dto.ut.PersonDto;
+import no.nav.bidrag.reisekostnad.tjeneste.støtte.Krypteringsverktøy;
+import org.jsoup.Jsoup;
+import org.jsoup.helper.W3CDom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.core.io.ClassPathResource;
+import org.w3c.dom.Document;
+
+/**
+ * Måler bygging av HTML-dokumentet og hele PDF-genereringen. Kjøres med GC-profilering, slik at allokerte bytes per PDF
+ * (gc.alloc.rate.norm) rapporteres sammen med antall PDFer per sekund.
+ * <p>
+ * {@link #byggeDokumentFraStreng()} gjenskaper den tidligere flyten med lesing av mal, serialisering til streng og ny parsing per dokument.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PdfGeneratorBenchmark {
+
+  private static final Set<PersonDto> BARN = Set.of(
+      new PersonDto(Krypteringsverktøy.kryptere("00087324682"), "Sandstrand", "Sandstrand", LocalDate.now().minusMonths(126)),
+      new PersonDto(Krypteringsverktøy.kryptere("25987324683"), "Verksted", "Verksted", LocalDate.now().minusMonths(159)));
+  private static final PersonDto HOVEDPART = new PersonDto(Krypteringsverktøy.kryptere("65987374687"), "Parkas", "Parkas",
+      LocalDate.now().minusMonths(465));
+  private static final PersonDto MOTPART = new PersonDto(Krypteringsverktøy.kryptere("45987324687"), "Bonjour", "Bonjour",
+      LocalDate.now().minusMonths(512));
+
+  @Benchmark
+  public Document byggeDokumentFraStreng() throws IOException {
+    var input = new ClassPathResource(Pdfmaler.STI_TIL_PDF_TEMPLATE + "bokmål.html").getInputStream();
+    var dokument = Jsoup.parse(input, "UTF-8", "");
+    var html = dokument.html().replaceFirst("charset=utf-8\">", "charset=utf-8\"/>").replaceFirst("href=\"style.css\">", "href=\"style.css\"/>");
+    var htmlSomStrøm = new ByteArrayInputStream(html.getBytes(StandardCharsets.UTF_8));
+    return new W3CDom().fromJsoup(Jsoup.parse(htmlSomStrøm, "UTF-8", "pdf-template/template.html"));
+  }
+
+  @Benchmark
+  public Document byggeDokument() {
+    return PdfGenerator.byggeDokument(Skriftspråk.BOKMÅL, BARN, HOVEDPART, MOTPART, LocalDateTime.now());
+  }
+
+  @Benchmark
+  public byte[] genererePdf() {
+    return PdfGenerator.genererePdf(BARN, HOVEDPART, MOTPART, LocalDateTime.now());
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(PdfGeneratorBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+  }
+}
@@ -0,0 +1,94 @@
+package no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
+import no.nav.bidrag.reisekostnad.feilhåndtering.InternFeil;
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+public class PdfGenereringskøTest {
+
+  private final CountDownLatch slippe = new CountDownLatch(1);
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private PdfGenereringskø pdfGenereringskø;
+
+  @AfterEach
+  void rydde() {
+    slippe.countDown();
+    pdfGenereringskø.stoppe();
+  }
+
+  @Test
+  void skalReturnerePdfFraKøen() {
+
+    // gitt
+    pdfGenereringskø = oppretteKø(1, 1, Duration.ofSeconds(5));
+
+    // hvis
+    var pdf = pdfGenereringskø.generere(() -> "pdf".getBytes());
+
+    // så
+    assertThat(pdf).isEqualTo("pdf".getBytes());
+  }
+
+  @Test
+  void skalAvviseBestillingNårKøenErFull() throws InterruptedException {
+
+    // gitt
+    pdfGenereringskø = oppretteKø(1, 1, Duration.ofSeconds(30));
+    var startet = new CountDownLatch(1);
+    CompletableFuture.runAsync(() -> pdfGenereringskø.generere(() -> {
+      startet.countDown();
+      slippe.await();
+      return new byte[0];
+    }));
+    assertThat(startet.await(5, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture.runAsync(() -> pdfGenereringskø.generere(() -> new byte[0]));
+    ventePåKølengde(1);
+
+    // hvis, så
+    assertThatThrownBy(() -> pdfGenereringskø.generere(() -> new byte[0]))
+        .isInstanceOf(InternFeil.class)
+        .extracting("feilkode").isEqualTo(Feilkode.PDF_OPPRETTELSE_KØ_FULL);
+    assertThat(meterRegistry.get("reisekostnad_pdf_avvist").counter().count()).isEqualTo(1);
+  }
+
+  @Test
+  void skalGiOppNårPdfIkkeErGenerertInnenTidsavbruddet() {
+
+    // gitt
+    pdfGenereringskø = oppretteKø(1, 1, Duration.ofMillis(100));
+
+    // hvis, så
+    assertThatThrownBy(() -> pdfGenereringskø.generere(() -> {
+      slippe.await();
+      return new byte[0];
+    }))
+        .isInstanceOf(InternFeil.class)
+        .extracting("feilkode").isEqualTo(Feilkode.PDF_OPPRETTELSE_FEILET);
+  }
+
+  private PdfGenereringskø oppretteKø(int antallTråder, int køkapasitet, Duration tidsavbrudd) {
+    var egenskaper = new Egenskaper();
+    egenskaper.getPdfgenerering().setAntallTraader(antallTråder);
+    egenskaper.getPdfgenerering().setKoekapasitet(køkapasitet);
+    egenskaper.getPdfgenerering().setTidsavbrudd(tidsavbrudd);
+    return new PdfGenereringskø(egenskaper, meterRegistry);
+  }
+
+  private void ventePåKølengde(int lengde) throws InterruptedException {
+    var måler = meterRegistry.get("reisekostnad_pdf_ko_lengde").gauge();
+    for (var i = 0; i < 100 && måler.value() < lengde; i++) {
+      Thread.sleep(50);
+    }
+    assertThat(måler.value()).isEqualTo(lengde);
+  }
+}
@@ -0,0 +1,109 @@
+package no.nav.bidrag.reisekostnad.integrasjon.bidrag.person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import no.nav.bidrag.reisekostnad.aop.Persontilgang;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentPersoninfoRespons;
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+
+@DisplayName("Personlaster")
+@ExtendWith(MockitoExtension.class)
+public class PersonlasterTest {
+
+  private static final String HOVEDPART = "12345678910";
+  private static final String MOTPART = "11111122222";
+  private static final String BARN = "77777700000";
+
+  private @Mock BidragPersonkonsument bidragPersonkonsument;
+  private @Mock Persontilgang persontilgang;
+  private @Mock ObjectProvider<CacheManager> cacheManager;
+
+  private Personlaster personlaster;
+
+  @BeforeEach
+  void oppsett() {
+    personlaster = new Personlaster(bidragPersonkonsument, persontilgang, cacheManager, new Egenskaper(), new SimpleMeterRegistry());
+  }
+
+  @Test
+  void skalHenteAllePersonerMedEttBolkkall() {
+
+    // gitt
+    when(bidragPersonkonsument.hentPersoninfoIBolkFraBidragPerson(anyCollection()))
+        .thenReturn(Optional.of(Map.of(HOVEDPART, personinfo("Gråtass"), MOTPART, personinfo("Streng"), BARN, personinfo("Grus"))));
+
+    // hvis
+    var personinfo = personlaster.hente(Set.of(HOVEDPART, MOTPART, BARN));
+
+    // så
+    assertAll(
+        () -> assertThat(personinfo).containsOnlyKeys(HOVEDPART, MOTPART, BARN),
+        () -> assertThat(personinfo.get(BARN).getFornavn()).isEqualTo("Grus"),
+        () -> verify(bidragPersonkonsument, times(1)).hentPersoninfoIBolkFraBidragPerson(anyCollection()),
+        () -> verify(bidragPersonkonsument, never()).hentPersoninfo(anyString()),
+        () -> verify(persontilgang, times(1)).kontrollere(anyCollection())
+    );
+  }
+
+  @Test
+  void skalHenteMedEnkeltkallDersomBolkendepunktetIkkeErTilgjengelig() {
+
+    // gitt
+    when(bidragPersonkonsument.hentPersoninfoIBolkFraBidragPerson(anyCollection())).thenReturn(Optional.empty());
+    when(bidragPersonkonsument.hentPersoninfo(HOVEDPART)).thenReturn(personinfo("Gråtass"));
+    when(bidragPersonkonsument.hentPersoninfo(BARN)).thenReturn(personinfo("Grus"));
+
+    // hvis
+    var personinfo = personlaster.hente(Set.of(HOVEDPART, BARN));
+
+    // så
+    assertAll(
+        () -> assertThat(personinfo).containsOnlyKeys(HOVEDPART, BARN),
+        () -> assertThat(personinfo.get(HOVEDPART).getFornavn()).isEqualTo("Gråtass"),
+        () -> verify(bidragPersonkonsument, times(2)).hentPersoninfo(anyString())
+    );
+  }
+
+  @Test
+  void skalHentePersonerSomManglerISvaretFraBolkendepunktetMedEnkeltkall() {
+
+    // gitt
+    when(bidragPersonkonsument.hentPersoninfoIBolkFraBidragPerson(anyCollection()))
+        .thenReturn(Optional.of(Map.of(HOVEDPART, personinfo("Gråtass"))));
+    when(bidragPersonkonsument.hentPersoninfo(BARN)).thenReturn(personinfo("Grus"));
+
+    // hvis
+    var personinfo = personlaster.hente(Set.of(HOVEDPART, BARN));
+
+    // så
+    assertAll(
+        () -> assertThat(personinfo).containsOnlyKeys(HOVEDPART, BARN),
+        () -> verify(bidragPersonkonsument, times(1)).hentPersoninfo(BARN),
+        () -> verify(bidragPersonkonsument, never()).hentPersoninfo(HOVEDPART)
+    );
+  }
+
+  private static HentPersoninfoRespons personinfo(String fornavn) {
+    return HentPersoninfoRespons.builder().fornavn(fornavn).kortnavn(fornavn).foedselsdato(LocalDate.now().minusYears(16)).build();
+  }
+}
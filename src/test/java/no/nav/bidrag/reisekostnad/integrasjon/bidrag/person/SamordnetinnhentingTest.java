@@ -0,0 +1,103 @@
+package no.nav.bidrag.reisekostnad.integrasjon.bidrag.person;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode;
+import no.nav.bidrag.reisekostnad.feilhåndtering.Persondatafeil;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+
+@DisplayName("Samordnetinnhenting")
+public class SamordnetinnhentingTest {
+
+  private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private final Samordnetinnhenting<String> samordnetinnhenting = new Samordnetinnhenting<>("/informasjon", meterRegistry);
+
+  @Test
+  void skalSendeSamtidigeKallForSammePersonidentVidereÉnGang() throws Exception {
+
+    // gitt
+    var antallKall = new AtomicInteger();
+    var kallStartet = new CountDownLatch(1);
+    var slippKall = new CountDownLatch(1);
+
+    try (var utfører = Executors.newVirtualThreadPerTaskExecutor()) {
+      var første = utfører.submit(() -> samordnetinnhenting.hente("12345678910", () -> {
+        antallKall.incrementAndGet();
+        kallStartet.countDown();
+        vente(slippKall);
+        return "svar";
+      }));
+      assertThat(kallStartet.await(5, TimeUnit.SECONDS)).isTrue();
+
+      // hvis
+      var andre = utfører.submit(() -> samordnetinnhenting.hente("12345678910", () -> {
+        antallKall.incrementAndGet();
+        return "annet svar";
+      }));
+      while (telle("samordnet") < 1) {
+        Thread.sleep(10);
+      }
+      slippKall.countDown();
+
+      // så
+      assertAll(
+          () -> assertThat(første.get(5, TimeUnit.SECONDS)).isEqualTo("svar"),
+          () -> assertThat(andre.get(5, TimeUnit.SECONDS)).isEqualTo("svar"),
+          () -> assertThat(antallKall.get()).isEqualTo(1),
+          () -> assertThat(telle("videresendt")).isEqualTo(1),
+          () -> assertThat(telle("samordnet")).isEqualTo(1)
+      );
+    }
+  }
+
+  @Test
+  void skalSendeNyttKallNårForrigeKallErFerdig() {
+
+    // gitt
+    var antallKall = new AtomicInteger();
+
+    // hvis
+    samordnetinnhenting.hente("12345678910", () -> "svar " + antallKall.incrementAndGet());
+    var svar = samordnetinnhenting.hente("12345678910", () -> "svar " + antallKall.incrementAndGet());
+
+    // så
+    assertAll(
+        () -> assertThat(svar).isEqualTo("svar 2"),
+        () -> assertThat(telle("videresendt")).isEqualTo(2),
+        () -> assertThat(telle("samordnet")).isZero()
+    );
+  }
+
+  @Test
+  void skalKasteFeilFraKalletOgIkkeHoldePåDen() {
+
+    // hvis
+    assertThatThrownBy(() -> samordnetinnhenting.hente("12345678910", () -> {
+      throw new Persondatafeil(Feilkode.PDL_FEIL, HttpStatus.INTERNAL_SERVER_ERROR);
+    })).isInstanceOf(Persondatafeil.class);
+
+    // så
+    assertThat(samordnetinnhenting.hente("12345678910", () -> "svar")).isEqualTo("svar");
+  }
+
+  private double telle(String utfall) {
+    return meterRegistry.get("reisekostnad_bidrag_person_kall").tag("utfall", utfall).counter().count();
+  }
+
+  private static void vente(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon
+
+import io.kotest.assertions.assertSoftly
+import no.nav.bidrag.reisekostnad.database.dao.VarselbestillingDao
+import no.nav.bidrag.reisekostnad.database.datamodell.Varselbestilling
+import no.nav.bidrag.reisekostnad.database.datamodell.Varseltype
+import no.nav.bidrag.reisekostnad.konfigurasjon.Brukernotifikasjonskonfig.NAMESPACE_BIDRAG
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
+import no.nav.bidrag.reisekostnad.skedulering.DatabehandlerTest
+import no.nav.brukernotifikasjon.schemas.builders.NokkelInputBuilder
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.springframework.beans.factory.annotation.Autowired
+import java.time.LocalDateTime
+import java.util.UUID
+
+@DisplayName("VarselbestillingTest")
+class VarselbestillingTest : DatabehandlerTest() {
+
+    @Autowired
+    lateinit var varselbestillingDao: VarselbestillingDao
+
+    @BeforeEach
+    fun sletteVarselbestillinger() {
+        varselbestillingDao.deleteAll()
+    }
+
+    @Test
+    fun skalBestilleFerdigstillingAvSendtOppgaveMedSammeEventId() {
+
+        // gitt
+        val forespørsel = forespørselDao.save(opppretteForespørsel(true))
+        val eventId = UUID.randomUUID().toString()
+        databasetjeneste.bestilleSamtykkeoppgave(forespørsel.id, bestilling(Varseltype.OPPGAVE, eventId, forespørsel.motpart.personident))
+        databasetjeneste.registrereVarslerSomSendt(varselbestillingDao.findAll().map { it.id })
+
+        val nøkkel = NokkelInputBuilder()
+            .withEventId(eventId)
+            .withGrupperingsId("reisekostnad")
+            .withFodselsnummer(forespørsel.motpart.personident)
+            .withAppnavn("bidrag-reisekostnad")
+            .withNamespace(NAMESPACE_BIDRAG)
+            .build()
+
+        // hvis
+        Ferdigprodusent(databasetjeneste, oppgavebestillingDao, Egenskaper()).ferdigstilleSamtykkeoppgave(nøkkel)
+
+        // så
+        val varselbestillinger = varselbestillingDao.findAll().toList()
+
+        assertSoftly {
+            assertThat(varselbestillinger.map { it.type }).containsExactlyInAnyOrder(Varseltype.OPPGAVE, Varseltype.FERDIG)
+            assertThat(varselbestillinger.map { it.eventId }).containsOnly(eventId)
+            assertThat(oppgavebestillingDao.henteOppgavebestilling(eventId).get().ferdigstilt).isNotNull
+        }
+    }
+
+    private fun bestilling(type: Varseltype, eventId: String, personident: String) = Varselbestilling.builder()
+        .type(type)
+        .eventId(eventId)
+        .personident(personident)
+        .tekst("Du har fått en oppgave")
+        .opprettet(LocalDateTime.now())
+        .tilgjengeligFra(LocalDateTime.now())
+        .build()
+}
@@ -0,0 +1,94 @@
+package no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varselbestilling;
+import no.nav.bidrag.reisekostnad.database.datamodell.Varseltype;
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper;
+import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste;
+import no.nav.brukernotifikasjon.schemas.input.NokkelInput;
+import org.apache.avro.specific.SpecificRecord;
+import org.apache.kafka.common.KafkaException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+
+@ExtendWith(MockitoExtension.class)
+public class VarselutsenderTest {
+
+  private @Mock KafkaTemplate<NokkelInput, SpecificRecord> kafkaTemplate;
+  private @Mock Databasetjeneste databasetjeneste;
+
+  private final Egenskaper egenskaper = new Egenskaper();
+  private Varselutsender varselutsender;
+
+  @BeforeEach
+  void oppsett() {
+    egenskaper.setUrlReisekostnad("https://bidrag-reisekostnad.nav.no");
+    varselutsender = new Varselutsender(kafkaTemplate, databasetjeneste, egenskaper, new SimpleMeterRegistry());
+  }
+
+  @Test
+  void skalBareRegistrereVarslerSomKafkaHarBekreftetSomSendt() {
+
+    // gitt
+    var beskjed = oppretteBestilling(1, Varseltype.BESKJED, "12345678910");
+    var ferdig = oppretteBestilling(2, Varseltype.FERDIG, "10987654321");
+    when(databasetjeneste.reservereVarselbestillinger(anyInt(), any(), anyInt())).thenReturn(List.of(beskjed, ferdig));
+    when(kafkaTemplate.send(eq(egenskaper.getBrukernotifikasjon().getEmneBeskjed()), any(NokkelInput.class), any(SpecificRecord.class)))
+        .thenReturn(CompletableFuture.completedFuture(new SendResult<>(null, null)));
+    when(kafkaTemplate.send(eq(egenskaper.getBrukernotifikasjon().getEmneFerdig()), any(NokkelInput.class), any(SpecificRecord.class)))
+        .thenReturn(CompletableFuture.failedFuture(new KafkaException("Utilgjengelig")));
+
+    // hvis
+    var antallSendt = varselutsender.sende();
+
+    // så
+    assertThat(antallSendt).isEqualTo(1);
+    verify(kafkaTemplate).flush();
+    verify(databasetjeneste).registrereVarslerSomSendt(List.of(1));
+  }
+
+  @Test
+  void skalIkkeSendeNoeDersomDetIkkeFinnesBestillinger() {
+
+    // gitt
+    when(databasetjeneste.reservereVarselbestillinger(anyInt(), any(), anyInt())).thenReturn(List.of());
+
+    // hvis
+    var antallSendt = varselutsender.sende();
+
+    // så
+    assertThat(antallSendt).isZero();
+    verify(kafkaTemplate, never()).flush();
+  }
+
+  private Varselbestilling oppretteBestilling(int id, Varseltype type, String personident) {
+    return Varselbestilling.builder()
+        .id(id)
+        .type(type)
+        .eventId("event-" + id)
+        .personident(personident)
+        .tekst("Du har fått en beskjed")
+        .lenke(egenskaper.getUrlReisekostnad())
+        .sikkerhetsnivå(3)
+        .synligFremTil(LocalDateTime.now().plusMonths(1))
+        .opprettet(LocalDateTime.now())
+        .tilgjengeligFra(LocalDateTime.now())
+        .build();
+  }
+}
@@ -0,0 +1,63 @@
+package no.nav.bidrag.reisekostnad.konfigurasjon.cache
+
+import io.kotest.assertions.assertSoftly
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Familiemedlem
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentFamilieRespons
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentPersoninfoRespons
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.MotpartBarnRelasjon
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import java.time.LocalDate
+
+@DisplayName("Cachevekter")
+class CachevekterTest {
+
+    private val cachevekter = Cachevekter()
+    private val nøkkel = UserCacheKey("12345678910", "12345678910")
+
+    @Test
+    fun skalGiFamilieMedFlereBarnHøyereVekt() {
+
+        // gitt
+        val ettBarn = familie(1)
+        val treBarn = familie(3)
+
+        // hvis
+        val vektEttBarn = cachevekter.weigh(nøkkel, ettBarn)
+        val vektTreBarn = cachevekter.weigh(nøkkel, treBarn)
+
+        // så
+        assertSoftly {
+            assertThat(vektEttBarn).isPositive()
+            assertThat(vektTreBarn).isGreaterThan(vektEttBarn)
+        }
+    }
+
+    @Test
+    fun skalGiPersoninfoLavereVektEnnFamilie() {
+
+        // gitt
+        val personinfo = HentPersoninfoRespons.builder().fornavn("Gråtass").kortnavn("Gråtass").foedselsdato(LocalDate.now().minusYears(40)).build()
+
+        // hvis
+        val vekt = cachevekter.weigh(nøkkel, personinfo)
+
+        // så
+        assertThat(vekt).isPositive().isLessThan(cachevekter.weigh(nøkkel, familie(1)))
+    }
+
+    private fun familie(antallBarn: Int): HentFamilieRespons {
+        val barn = (1..antallBarn).map { familiemedlem("0101200000$it") }
+        return HentFamilieRespons.builder()
+            .person(familiemedlem("12345678910"))
+            .personensMotpartBarnRelasjon(
+                listOf(MotpartBarnRelasjon.builder().motpart(familiemedlem("11111122222")).fellesBarn(barn).build())
+            )
+            .build()
+    }
+
+    private fun familiemedlem(ident: String): Familiemedlem {
+        return Familiemedlem.builder().ident(ident).fornavn("Fornavn").etternavn("Etternavn").foedselsdato(LocalDate.now().minusYears(10)).build()
+    }
+}
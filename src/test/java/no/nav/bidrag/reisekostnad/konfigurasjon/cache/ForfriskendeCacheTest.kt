@@ -0,0 +1,153 @@
+package no.nav.bidrag.reisekostnad.konfigurasjon.cache
+
+import com.github.benmanes.caffeine.cache.Caffeine
+import com.github.benmanes.caffeine.cache.Expiry
+import io.kotest.assertions.assertSoftly
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import java.time.Duration
+import java.time.LocalDateTime
+import java.util.Optional
+import java.util.concurrent.Executor
+import java.util.concurrent.TimeUnit
+
+@DisplayName("ForfriskendeCache")
+class ForfriskendeCacheTest {
+
+    private val utløpOmTiMinutter = object : Expiry<Any, Any> {
+        override fun expireAfterCreate(key: Any, value: Any, currentTime: Long) = TimeUnit.MINUTES.toNanos(10)
+        override fun expireAfterUpdate(key: Any, value: Any, currentTime: Long, currentDuration: Long) = TimeUnit.MINUTES.toNanos(10)
+        override fun expireAfterRead(key: Any, value: Any, currentTime: Long, currentDuration: Long) = currentDuration
+    }
+
+    private val utførerISammeTråd = Executor { it.run() }
+
+    @Test
+    fun skalReturnereGammelVerdiOgForfriskeElementSomUtløperInnenforVinduet() {
+
+        // gitt
+        var antallInnhentinger = 0
+        val cache = ForfriskendeCache(
+            "person-cache", Caffeine.newBuilder().expireAfter(utløpOmTiMinutter).build(), { "svar ${++antallInnhentinger}" },
+            Duration.ofHours(1), utførerISammeTråd
+        )
+        val nøkkel = UserCacheKey("12345678910", "12345678910")
+        cache.put(nøkkel, "svar 0")
+
+        // hvis
+        val verdi = cache.get(nøkkel)?.get()
+
+        // så
+        assertSoftly {
+            assertThat(verdi).isEqualTo("svar 0")
+            assertThat(cache.nativeCache.getIfPresent(nøkkel)).isEqualTo("svar 1")
+            assertThat(antallInnhentinger).isEqualTo(1)
+        }
+    }
+
+    @Test
+    fun skalForfriskeElementIDeltCacheNøkletPåPersonident() {
+
+        // gitt
+        var antallInnhentinger = 0
+        val cache = ForfriskendeCache(
+            "person-cache", Caffeine.newBuilder().expireAfter(utløpOmTiMinutter).build(), { "svar ${++antallInnhentinger}" },
+            Duration.ofHours(1), utførerISammeTråd
+        )
+        cache.put("12345678910", "svar 0")
+
+        // hvis
+        val verdi = cache.get("12345678910")?.get()
+
+        // så
+        assertSoftly {
+            assertThat(verdi).isEqualTo("svar 0")
+            assertThat(cache.nativeCache.getIfPresent("12345678910")).isEqualTo("svar 1")
+        }
+    }
+
+    @Test
+    fun skalIkkeForfriskeElementSomIkkeUtløperInnenforVinduet() {
+
+        // gitt
+        var antallInnhentinger = 0
+        val cache = ForfriskendeCache(
+            "person-cache", Caffeine.newBuilder().expireAfter(utløpOmTiMinutter).build(), { "svar ${++antallInnhentinger}" },
+            Duration.ofMinutes(5), utførerISammeTråd
+        )
+        val nøkkel = UserCacheKey("12345678910", "12345678910")
+        cache.put(nøkkel, "svar 0")
+
+        // hvis
+        val verdi = cache.get(nøkkel)?.get()
+
+        // så
+        assertSoftly {
+            assertThat(verdi).isEqualTo("svar 0")
+            assertThat(antallInnhentinger).isZero()
+        }
+    }
+
+    @Test
+    fun skalForvarmeElementForAlleNøklerMedÉnInnhenting() {
+
+        // gitt
+        var antallInnhentinger = 0
+        val cache = ForfriskendeCache(
+            "person-cache", Caffeine.newBuilder().build(), { "svar ${++antallInnhentinger}" }, Duration.ofHours(1), utførerISammeTråd
+        )
+
+        // hvis
+        cache.forvarme("77777700000", listOf(UserCacheKey("12345678910", "77777700000"), UserCacheKey("11111122222", "77777700000")))
+
+        // så
+        assertSoftly {
+            assertThat(cache.get(UserCacheKey("12345678910", "77777700000"))?.get()).isEqualTo("svar 1")
+            assertThat(cache.get(UserCacheKey("11111122222", "77777700000"))?.get()).isEqualTo("svar 1")
+            assertThat(antallInnhentinger).isEqualTo(1)
+        }
+    }
+
+    @Test
+    fun skalLagreVerdienIOptionalPåSammeFormSomCacheable() {
+
+        // gitt
+        val cache = ForfriskendeCache(
+            "familie-cache", Caffeine.newBuilder().expireAfter(utløpOmTiMinutter).build(),
+            { if (it == "12345678910") Optional.of("familie") else Optional.empty<String>() }, Duration.ofHours(1), utførerISammeTråd
+        )
+        val nøkkel = UserCacheKey("12345678910", "12345678910")
+        cache.put(nøkkel, "gammel familie")
+        cache.put("10987654321", "gammel familie")
+
+        // hvis
+        cache.forvarme("77777700000", listOf(UserCacheKey("77777700000", "77777700000")))
+        cache.get(nøkkel)
+        cache.get("10987654321")
+
+        // så
+        assertSoftly {
+            assertThat(cache.nativeCache.getIfPresent(nøkkel)).isEqualTo("familie")
+            assertThat(cache.nativeCache.getIfPresent("10987654321")).isEqualTo("gammel familie")
+            assertThat(cache.nativeCache.getIfPresent(UserCacheKey("77777700000", "77777700000"))).isNull()
+        }
+    }
+
+    @Test
+    fun skalSpreUtløpOverSpredningenFørArbeidstid() {
+
+        // gitt
+        val utløp = CacheEvictBeforeWorkingHours(Duration.ofHours(1))
+        val arbeidstid = LocalDateTime.now().plusDays(1).withHour(6).withMinute(0).withSecond(0)
+
+        // hvis
+        val utløpstidspunkter = (1..100).map { LocalDateTime.now().plusNanos(utløp.expireAfterCreate("nøkkel", "verdi", 0)) }
+
+        // så
+        assertSoftly {
+            assertThat(utløpstidspunkter).allMatch { it.isAfter(arbeidstid.minusHours(1).minusSeconds(1)) && !it.isAfter(arbeidstid.plusSeconds(1)) }
+            assertThat(utløpstidspunkter.toSet()).hasSizeGreaterThan(1)
+        }
+    }
+}
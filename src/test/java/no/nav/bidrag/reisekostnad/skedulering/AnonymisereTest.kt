@@ -1,11 +1,15 @@
 package no.nav.bidrag.reisekostnad.skedulering
 
 import io.kotest.assertions.assertSoftly
+import io.micrometer.core.instrument.MeterRegistry
+import no.nav.bidrag.reisekostnad.database.datamodell.Forelder
 import no.nav.bidrag.reisekostnad.database.datamodell.Oppgavebestilling
 import no.nav.bidrag.reisekostnad.konfigurasjon.Applikasjonskonfig.FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.DisplayName
 import org.junit.jupiter.api.Test
+import org.springframework.beans.factory.annotation.Autowired
 import java.time.LocalDate
 import java.time.LocalDateTime
 import java.util.*
@@ -13,6 +17,12 @@ import java.util.*
 @DisplayName("AnonymisereTest")
 class AnonymisereTest : DatabehandlerTest() {
 
+    @Autowired
+    lateinit var egenskaper: Egenskaper
+
+    @Autowired
+    lateinit var meterRegistry: MeterRegistry
+
     @Test
     fun skalAnonymisereBarnOgSletteForeldreSomIkkeErTilknyttetAktiveForespørsler() {
 
@@ -237,4 +247,52 @@ class AnonymisereTest : DatabehandlerTest() {
             assertThat(anonymisertForespørsel.get().barn.stream().findFirst().get().personident).isNull()
         }
     }
+
+    @Test
+    fun skalAnonymisereBarnOgSletteForeldreIFlereBolker() {
+
+        // gitt
+        val bolkstørrelse = egenskaper.anonymisering.bolkstoerrelse
+        egenskaper.anonymisering.bolkstoerrelse = 1
+
+        val lagredeForespørsler = listOf("12345678901", "12345678902", "12345678903").mapIndexed { indeks, ident ->
+            val forespørsel = oppretteForespørsel(
+                Forelder.builder().personident(ident).build(),
+                Forelder.builder().personident(ident.reversed()).build(),
+                mutableSetOf(listOf(testpersonBarn11, testpersonBarn12, testpersonBarn13)[indeks])
+            )
+            forespørsel.opprettet =
+                LocalDateTime.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING * 2 + 13)
+            forespørsel.deaktivert =
+                LocalDate.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING + 1).atStartOfDay()
+            forespørselDao.save(forespørsel)
+        }
+
+        val antallBolkerBarnFør = antallBolker("barn")
+        val antallBolkerForeldreFør = antallBolker("foreldre")
+
+        // hvis
+        try {
+            databehandler.anonymisereBarnOgSletteForeldreSomIkkeErKnyttetTilAktiveForespørsler()
+        } finally {
+            egenskaper.anonymisering.bolkstoerrelse = bolkstørrelse
+        }
+
+        // så
+        assertSoftly {
+            assertThat(antallBolker("barn") - antallBolkerBarnFør).isEqualTo(3)
+            assertThat(antallBolker("foreldre") - antallBolkerForeldreFør).isEqualTo(6)
+            assertThat(forelderDao.findAll()).isEmpty()
+            lagredeForespørsler.forEach {
+                val forespørsel = forespørselDao.findById(it.id).get()
+                assertThat(forespørsel.hovedpart).isNull()
+                assertThat(forespørsel.motpart).isNull()
+                assertThat(forespørsel.anonymisert).isNotNull
+                assertThat(forespørsel.barn.single().personident).isNull()
+            }
+        }
+    }
+
+    private fun antallBolker(type: String) =
+        meterRegistry.find("reisekostnad_anonymisering_bolk").tag("type", type).timer()?.count() ?: 0L
 }
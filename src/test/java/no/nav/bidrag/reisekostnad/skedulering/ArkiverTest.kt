@@ -3,18 +3,17 @@ package no.nav.bidrag.reisekostnad.skedulering
 import io.kotest.assertions.assertSoftly
 import io.kotest.matchers.date.shouldHaveSameDayAs
 import io.kotest.matchers.shouldBe
+import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel
 import no.nav.bidrag.reisekostnad.verifiserDokumentArkivertForForespørsel
 import no.nav.bidrag.reisekostnad.verifiserDokumentIkkeArkivertForForespørsel
 import org.junit.jupiter.api.DisplayName
 import org.junit.jupiter.api.Test
 import java.time.LocalDateTime
-import jakarta.transaction.Transactional
 
 @DisplayName("ArkiverSkeduleringTest")
 class ArkiverTest: DatabehandlerTest() {
 
     @Test
-    @Transactional
     fun skalArkivereFlereForespørsler(){
         val forespørsel = opppretteForespørsel()
         val forespørsel2 = opppretteForespørsel()
@@ -25,17 +24,16 @@ class ArkiverTest: DatabehandlerTest() {
         databehandler.arkiverForespørslerSomErKlareForInnsending()
 
         assertSoftly {
-            forespørsel.journalført shouldHaveSameDayAs LocalDateTime.now()
-            forespørsel2.journalført shouldHaveSameDayAs LocalDateTime.now()
-            forespørsel3.journalført shouldHaveSameDayAs LocalDateTime.now()
-            forespørsel.idJournalpost shouldBe "1232132132"
+            hente(forespørsel).journalført shouldHaveSameDayAs LocalDateTime.now()
+            hente(forespørsel2).journalført shouldHaveSameDayAs LocalDateTime.now()
+            hente(forespørsel3).journalført shouldHaveSameDayAs LocalDateTime.now()
+            hente(forespørsel).idJournalpost shouldBe "1232132132"
             verifiserDokumentArkivertForForespørsel(forespørsel.id)
             verifiserDokumentArkivertForForespørsel(forespørsel2.id)
             verifiserDokumentArkivertForForespørsel(forespørsel3.id)
         }
     }
     @Test
-    @Transactional
     fun skalArkivereForespørslerSomIkkeKreverSamtykke(){
         val forespørsel = opppretteForespørsel()
         forespørsel.isKreverSamtykke = false
@@ -44,14 +42,13 @@ class ArkiverTest: DatabehandlerTest() {
         databehandler.arkiverForespørslerSomErKlareForInnsending()
 
         assertSoftly {
-            forespørsel.journalført shouldHaveSameDayAs LocalDateTime.now()
-            forespørsel.idJournalpost shouldBe "1232132132"
+            hente(forespørsel).journalført shouldHaveSameDayAs LocalDateTime.now()
+            hente(forespørsel).idJournalpost shouldBe "1232132132"
             verifiserDokumentArkivertForForespørsel(forespørsel.id)
         }
     }
 
     @Test
-    @Transactional
     fun skalArkivereForespørslerSomErSamtykket(){
         val forespørsel = opppretteForespørsel()
         forespørsel.isKreverSamtykke = true
@@ -60,14 +57,13 @@ class ArkiverTest: DatabehandlerTest() {
         databehandler.arkiverForespørslerSomErKlareForInnsending()
 
         assertSoftly {
-            forespørsel.journalført shouldHaveSameDayAs LocalDateTime.now()
-            forespørsel.idJournalpost shouldBe "1232132132"
+            hente(forespørsel).journalført shouldHaveSameDayAs LocalDateTime.now()
+            hente(forespørsel).idJournalpost shouldBe "1232132132"
             verifiserDokumentArkivertForForespørsel(forespørsel.id)
         }
     }
 
     @Test
-    @Transactional
     fun skalIkkeArkivereForespørslerSomIkkeErSamtykket(){
         val forespørsel = opppretteForespørsel()
         forespørsel.isKreverSamtykke = true
@@ -83,15 +79,20 @@ class ArkiverTest: DatabehandlerTest() {
         databehandler.arkiverForespørslerSomErKlareForInnsending()
 
         assertSoftly {
-            forespørsel.journalført shouldBe null
-            forespørsel.idJournalpost shouldBe null
-            forespørsel2.journalført shouldBe null
-            forespørsel2.idJournalpost shouldBe null
-            forespørselDeaktivert.journalført shouldBe null
-            forespørselDeaktivert.idJournalpost shouldBe null
+            hente(forespørsel).journalført shouldBe null
+            hente(forespørsel).idJournalpost shouldBe null
+            hente(forespørsel2).journalført shouldBe null
+            hente(forespørsel2).idJournalpost shouldBe null
+            hente(forespørselDeaktivert).journalført shouldBe null
+            hente(forespørselDeaktivert).idJournalpost shouldBe null
             verifiserDokumentIkkeArkivertForForespørsel(forespørsel.id)
             verifiserDokumentIkkeArkivertForForespørsel(forespørselDeaktivert.id)
             verifiserDokumentIkkeArkivertForForespørsel(forespørsel2.id)
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Arkiveringen skjer i egne transaksjoner, så endringene må leses fra databasen.
+     */
+    private fun hente(forespørsel: Forespørsel) = forespørselDao.findById(forespørsel.id).get()
+}
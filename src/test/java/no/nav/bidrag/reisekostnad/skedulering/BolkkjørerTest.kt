@@ -0,0 +1,193 @@
+package no.nav.bidrag.reisekostnad.skedulering
+
+import io.kotest.assertions.assertSoftly
+import io.micrometer.core.instrument.MeterRegistry
+import no.nav.bidrag.reisekostnad.database.datamodell.Jobbpartisjon
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
+import org.assertj.core.api.Assertions.assertThat
+import org.junit.jupiter.api.DisplayName
+import org.junit.jupiter.api.Test
+import org.springframework.beans.factory.annotation.Autowired
+import org.springframework.core.env.Environment
+import org.springframework.data.domain.Pageable
+import org.springframework.scheduling.support.CronExpression
+import java.time.LocalDate
+import java.time.LocalDateTime
+
+private const val JOBB = "test_bolkjobb"
+
+@DisplayName("BolkkjørerTest")
+class BolkkjørerTest : DatabehandlerTest() {
+
+    @Autowired
+    lateinit var bolkkjører: Bolkkjører
+
+    @Autowired
+    lateinit var egenskaper: Egenskaper
+
+    @Autowired
+    lateinit var meterRegistry: MeterRegistry
+
+    @Autowired
+    lateinit var environment: Environment
+
+    private val ider = (1..40).toList()
+
+    @Test
+    fun skalTaOverPartisjonNårLeienTilEnAnnenInstansHarUtløpt() {
+
+        // gitt
+        jobbpartisjonDao.save(
+            Jobbpartisjon.builder().jobb(JOBB).partisjon(0).eier("annen-instans").leidTil(LocalDateTime.now().minusMinutes(1)).build()
+        )
+        val behandlet = mutableListOf<Int>()
+
+        // hvis
+        kjøreMedPartisjoner(1) { bolkkjører.kjøre(kjøring(), JOBB, hente(), { it }) { behandlet.add(it) } }
+
+        // så
+        val partisjon = jobbpartisjonDao.findById(Jobbpartisjon.Nøkkel(JOBB, 0)).get()
+
+        assertSoftly {
+            assertThat(behandlet).containsExactlyElementsOf(ider)
+            assertThat(partisjon.fullført).isNotNull
+            assertThat(partisjon.eier).isNull()
+        }
+    }
+
+    @Test
+    fun skalStarteNyRundeNårAllePartisjoneneErFullført() {
+
+        // gitt
+        jobbpartisjonDao.save(
+            Jobbpartisjon.builder().jobb(JOBB).partisjon(0).fullført(LocalDateTime.now().minusDays(1))
+                .rundeStartet(LocalDate.now().minusDays(1).atStartOfDay()).build()
+        )
+        val behandlet = mutableListOf<Int>()
+
+        // hvis
+        kjøreMedPartisjoner(1) { bolkkjører.kjøre(kjøring(), JOBB, hente(), { it }) { behandlet.add(it) } }
+
+        // så
+        assertSoftly {
+            assertThat(behandlet).containsExactlyElementsOf(ider)
+            assertThat(jobbpartisjonDao.findById(Jobbpartisjon.Nøkkel(JOBB, 0)).get().fullført).isAfter(LocalDateTime.now().minusMinutes(1))
+        }
+    }
+
+    @Test
+    fun skalIkkeStarteNyRundeNårRundenAlleredeErKjørtForSammePlanlagteKjøring() {
+
+        // gitt
+        jobbpartisjonDao.save(
+            Jobbpartisjon.builder().jobb(JOBB).partisjon(0).fullført(LocalDateTime.now().minusMinutes(1))
+                .rundeStartet(LocalDate.now().atStartOfDay()).build()
+        )
+        val behandlet = mutableListOf<Int>()
+
+        // hvis
+        val antallBehandlet = kjøreMedPartisjoner(1) { bolkkjører.kjøre(kjøring(), JOBB, hente(), { it }) { behandlet.add(it) } }
+
+        // så
+        assertSoftly {
+            assertThat(antallBehandlet).isZero()
+            assertThat(behandlet).isEmpty()
+        }
+    }
+
+    @Test
+    fun skalFordelePartisjoneneMellomToEiere() {
+
+        // gitt
+        val annenInstans = Bolkkjører(jobbpartisjonDao, egenskaper, meterRegistry, transactionTemplate, environment)
+        val behandlet = mutableListOf<Int>()
+        val behandletAvAnnenInstans = mutableListOf<Int>()
+        var antallBehandletAvAnnenInstans = 0
+
+        // hvis
+        val antallBehandlet = kjøreMedPartisjoner(4) {
+            bolkkjører.kjøre(kjøring(), JOBB, hente(), { it }) { id ->
+                // Den andre instansen starter mens denne instansen leier partisjon 0
+                if (behandlet.isEmpty()) {
+                    antallBehandletAvAnnenInstans =
+                        annenInstans.kjøre(kjøring(), JOBB, hente(), { it }) { behandletAvAnnenInstans.add(it) }
+                }
+                behandlet.add(id)
+            }
+        }
+
+        // så
+        val partisjoner = jobbpartisjonDao.findAll().filter { it.jobb == JOBB }
+
+        assertSoftly {
+            assertThat(behandlet).containsExactlyElementsOf(ider.filter { it % 4 == 0 })
+            assertThat(behandletAvAnnenInstans).containsExactlyInAnyOrderElementsOf(ider.filter { it % 4 != 0 })
+            assertThat(antallBehandlet).isEqualTo(10)
+            assertThat(antallBehandletAvAnnenInstans).isEqualTo(30)
+            assertThat(partisjoner).hasSize(4)
+            assertThat(partisjoner.map { it.fullført }).doesNotContainNull()
+            assertThat(partisjoner.map { it.eier }).containsOnlyNulls()
+        }
+    }
+
+    @Test
+    fun skalIkkeKjøreSammeJobbSamtidigToGangerIÉnInstans() {
+
+        // gitt
+        val behandlet = mutableListOf<Int>()
+        var antallBehandletAvOverlappendeKjøring = -1
+
+        // hvis
+        kjøreMedPartisjoner(1) {
+            bolkkjører.kjøre(kjøring(), JOBB, hente(), { it }) { id ->
+                if (behandlet.isEmpty()) {
+                    antallBehandletAvOverlappendeKjøring = bolkkjører.kjøre(kjøring(), JOBB, hente(), { it }) { behandlet.add(it) }
+                }
+                behandlet.add(id)
+            }
+        }
+
+        // så
+        assertSoftly {
+            assertThat(antallBehandletAvOverlappendeKjøring).isZero()
+            assertThat(behandlet).containsExactlyElementsOf(ider)
+        }
+    }
+
+    @Test
+    fun skalFinneForrigePlanlagteKjøring() {
+
+        // gitt
+        val hvertMinuttKlokkenSju = CronExpression.parse("0 * 7 * * ?")
+        val dagligKlokkenSju = CronExpression.parse("0 0 7 * * ?")
+
+        // hvis, så
+        assertSoftly {
+            assertThat(forrigePlanlagteKjøring(hvertMinuttKlokkenSju, LocalDateTime.of(2026, 10, 17, 7, 15, 30)))
+                .isEqualTo(LocalDateTime.of(2026, 10, 17, 7, 15))
+            assertThat(forrigePlanlagteKjøring(hvertMinuttKlokkenSju, LocalDateTime.of(2026, 10, 17, 12, 0)))
+                .isEqualTo(LocalDateTime.of(2026, 10, 17, 7, 59))
+            assertThat(forrigePlanlagteKjøring(dagligKlokkenSju, LocalDateTime.of(2026, 10, 17, 6, 0)))
+                .isEqualTo(LocalDateTime.of(2026, 10, 16, 7, 0))
+        }
+    }
+
+    /**
+     * Planlagt ved midnatt, slik at runder som er startet tidligere i dag tilhører samme planlagte kjøring.
+     */
+    private fun kjøring() = Kjøring(LocalDate.now().atStartOfDay(), LocalDateTime.now().plusMinutes(1))
+
+    private fun hente() = { etterId: Int, partisjon: Int, antallPartisjoner: Int, side: Pageable ->
+        ider.filter { it > etterId && it % antallPartisjoner == partisjon }.take(side.pageSize)
+    }
+
+    private fun <R> kjøreMedPartisjoner(antall: Int, jobb: () -> R): R {
+        val antallPartisjoner = egenskaper.bolkjobb.antallPartisjoner
+        egenskaper.bolkjobb.antallPartisjoner = antall
+        try {
+            return jobb()
+        } finally {
+            egenskaper.bolkjobb.antallPartisjoner = antallPartisjoner
+        }
+    }
+}
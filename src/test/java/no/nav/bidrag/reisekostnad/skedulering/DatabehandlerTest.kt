@@ -5,9 +5,11 @@ import com.ninjasquad.springmockk.MockkBean
 import io.mockk.junit5.MockKExtension
 import no.nav.bidrag.reisekostnad.BidragReisekostnadApiTestapplikasjon
 import no.nav.bidrag.reisekostnad.Testperson
+import no.nav.bidrag.reisekostnad.database.dao.ArkiveringsbestillingDao
 import no.nav.bidrag.reisekostnad.database.dao.BarnDao
 import no.nav.bidrag.reisekostnad.database.dao.ForelderDao
 import no.nav.bidrag.reisekostnad.database.dao.ForespørselDao
+import no.nav.bidrag.reisekostnad.database.dao.JobbpartisjonDao
 import no.nav.bidrag.reisekostnad.database.dao.OppgavebestillingDao
 import no.nav.bidrag.reisekostnad.database.datamodell.Barn
 import no.nav.bidrag.reisekostnad.database.datamodell.Forelder
@@ -68,10 +70,18 @@ class DatabehandlerTest {
     @Autowired
     lateinit var oppgavebestillingDao: OppgavebestillingDao
 
+    @Autowired
+    lateinit var arkiveringsbestillingDao: ArkiveringsbestillingDao
+
+    @Autowired
+    lateinit var jobbpartisjonDao: JobbpartisjonDao
+
     @BeforeEach
     fun sletteTestdata() {
         WireMock.resetAllRequests()
+        jobbpartisjonDao.deleteAll()
         oppgavebestillingDao.deleteAll()
+        arkiveringsbestillingDao.deleteAll()
         barnDao.deleteAll()
         forespørselDao.deleteAll()
         forelderDao.deleteAll()
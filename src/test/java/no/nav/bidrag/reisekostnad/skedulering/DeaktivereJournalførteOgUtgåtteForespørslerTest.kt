@@ -3,14 +3,19 @@ package no.nav.bidrag.reisekostnad.skedulering
 import io.kotest.assertions.assertSoftly
 import io.mockk.every
 import io.mockk.verify
+import no.nav.bidrag.reisekostnad.database.datamodell.Forelder
+import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel
+import no.nav.bidrag.reisekostnad.database.datamodell.Jobbpartisjon
 import no.nav.bidrag.reisekostnad.database.datamodell.Oppgavebestilling
 import no.nav.bidrag.reisekostnad.konfigurasjon.Applikasjonskonfig.FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
 import no.nav.bidrag.reisekostnad.model.hovedpartIdent
 import no.nav.bidrag.reisekostnad.model.motpartIdent
 import org.assertj.core.api.Assertions.assertThat
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.DisplayName
 import org.junit.jupiter.api.Test
+import org.springframework.beans.factory.annotation.Autowired
 import java.time.LocalDate
 import java.time.LocalDateTime
 import java.util.*
@@ -18,6 +23,9 @@ import java.util.*
 @DisplayName("DeaktivereJournalførteOgUtgåtteForespørslerTest")
 class DeaktivereJournalførteOgUtgåtteForespørslerTest : DatabehandlerTest() {
 
+    @Autowired
+    lateinit var egenskaper: Egenskaper
+
     @BeforeEach
     fun setup() {
 
@@ -136,5 +144,61 @@ class DeaktivereJournalførteOgUtgåtteForespørslerTest : DatabehandlerTest() {
         }
     }
 
+    @Test
+    fun skalFortsetteEtterSjekkpunktFraAvbruttKjøring() {
+
+        // gitt
+        val (lagretFørsteForespørsel, lagretAndreForespørsel) = lagreJournalførteForespørsler()
+
+        jobbpartisjonDao.save(
+            Jobbpartisjon.builder().jobb("deaktivere_journalførte").partisjon(0).sisteId(lagretFørsteForespørsel.id).build()
+        )
+
+        // hvis
+        kjøreMedÉnPartisjon { databehandler.deaktivereJournalførteOgUtgåtteForespørsler() }
+
+        // så
+        val partisjon = jobbpartisjonDao.findById(Jobbpartisjon.Nøkkel("deaktivere_journalførte", 0)).get()
 
+        assertSoftly {
+            assertThat(forespørselDao.findById(lagretFørsteForespørsel.id).get().deaktivert).isNull()
+            assertThat(forespørselDao.findById(lagretAndreForespørsel.id).get().deaktivert).isNotNull
+            assertThat(partisjon.fullført).isNotNull
+            assertThat(partisjon.sisteId).isZero()
+        }
+    }
+
+    /**
+     * Lagrer to journalførte forespørsler som skal deaktiveres av jobben for journalførte forespørsler. Forespørslene er samtykket nylig, slik at
+     * de ikke deaktiveres av jobben for forespørsler med utgått samtykkefrist.
+     */
+    private fun lagreJournalførteForespørsler(): Pair<Forespørsel, Forespørsel> {
+        val opprettet = LocalDateTime.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING + 13)
+        val journalført = LocalDate.now().minusDays(FORESPØRSLER_SYNLIGE_I_ANTALL_DAGER_ETTER_SISTE_STATUSOPPDATERING).atStartOfDay()
+
+        val førsteForespørsel = opppretteForespørsel(true)
+        val andreForespørsel = oppretteForespørsel(
+            Forelder.builder().personident("12345678901").build(),
+            Forelder.builder().personident("10987654321").build(),
+            mutableSetOf(testpersonBarn11),
+            true
+        )
+
+        return listOf(førsteForespørsel, andreForespørsel).map {
+            it.opprettet = opprettet
+            it.samtykket = LocalDateTime.now()
+            it.journalført = journalført
+            forespørselDao.save(it)
+        }.let { Pair(it[0], it[1]) }
+    }
+
+    private fun kjøreMedÉnPartisjon(jobb: () -> Unit) {
+        val antallPartisjoner = egenskaper.bolkjobb.antallPartisjoner
+        egenskaper.bolkjobb.antallPartisjoner = 1
+        try {
+            jobb()
+        } finally {
+            egenskaper.bolkjobb.antallPartisjoner = antallPartisjoner
+        }
+    }
 }
@@ -1,14 +1,14 @@
 package no.nav.bidrag.reisekostnad.tjeneste.støtte
 
 import io.kotest.assertions.assertSoftly
-import io.kotest.matchers.date.shouldHaveSameDayAs
-import io.kotest.matchers.shouldBe
 import io.mockk.clearAllMocks
+import io.kotest.matchers.shouldBe
+import io.mockk.Runs
 import io.mockk.every
 import io.mockk.impl.annotations.InjectMockKs
 import io.mockk.impl.annotations.MockK
 import io.mockk.junit5.MockKExtension
-import io.mockk.mockkStatic
+import io.mockk.just
 import io.mockk.verify
 import no.nav.bidrag.transport.dokument.OpprettJournalpostResponse
 import no.nav.bidrag.reisekostnad.api.dto.ut.PersonDto
@@ -18,7 +18,7 @@ import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel
 import no.nav.bidrag.reisekostnad.feilhåndtering.Arkiveringsfeil
 import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.BidragDokumentkonsument
-import no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf.PdfGenerator
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.doument.pdf.PdfGenereringskø
 import no.nav.bidrag.reisekostnad.tjeneste.Arkiveringstjeneste
 import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste
 import org.junit.jupiter.api.BeforeEach
@@ -27,6 +27,7 @@ import org.junit.jupiter.api.extension.ExtendWith
 import org.springframework.http.HttpStatus
 import java.time.LocalDate
 import java.time.LocalDateTime
+import java.util.Optional
 
 @ExtendWith(MockKExtension::class)
 class ArkiveringTjenesteTest {
@@ -39,6 +40,9 @@ class ArkiveringTjenesteTest {
     @MockK
     lateinit var mapper: Mapper
 
+    @MockK
+    lateinit var pdfGenereringskø: PdfGenereringskø
+
     @InjectMockKs
     lateinit var arkiveringstjeneste: Arkiveringstjeneste
 
@@ -62,12 +66,14 @@ class ArkiveringTjenesteTest {
     fun clearMocks() {
         clearAllMocks()
 
-        mockkStatic(PdfGenerator::class)
-        every { PdfGenerator.genererePdf(any(), any(), any(), any()) } returns produsertDokument
-        every { mapper.tilPersonDto(identHovedpart) } returns hovedpartDto
-        every { mapper.tilPersonDto(identMotpart) } returns motpartDto
-        every { mapper.tilPersonDto(identBarn2) } returns barn2Dto
-        every { mapper.tilPersonDto(identBarn1) } returns barn1Dto
+        every { pdfGenereringskø.genererePdf(any(), any(), any(), any()) } returns produsertDokument
+        every { databasetjeneste.registrereJournalføring(any(), any()) } just Runs
+        every { mapper.tilPersonDto(any<Collection<String>>()) } returns mapOf(
+            identHovedpart to hovedpartDto,
+            identMotpart to motpartDto,
+            identBarn2 to barn2Dto,
+            identBarn1 to barn1Dto
+        )
     }
 
     @Test
@@ -78,16 +84,15 @@ class ArkiveringTjenesteTest {
         val forespørsel = oppretteForespørsel(identHovedpart, identMotpart, barn)
         forespørsel.id = 5151515
 
-        every { databasetjeneste.henteAktivForespørsel(any()) } returns forespørsel
+        every { databasetjeneste.finneAktivForespørsel(any()) } returns Optional.of(forespørsel)
         every { bidragDokument.opprettJournalpost(any(), any(), any()) } returns OpprettJournalpostResponse(responsJournalpostId)
 
         arkiveringstjeneste.arkivereForespørsel(forespørsel.id)
 
         assertSoftly {
-            forespørsel.journalført shouldHaveSameDayAs LocalDateTime.now()
-            forespørsel.idJournalpost shouldBe responsJournalpostId
+            verify { databasetjeneste.registrereJournalføring(forespørsel.id, responsJournalpostId) }
             verify { bidragDokument.opprettJournalpost(identHovedpart, match { it.contains(forespørsel.id.toString()) }, produsertDokument) }
-            verify { PdfGenerator.genererePdf(mutableSetOf(barn1Dto, barn2Dto), hovedpartDto, motpartDto, any()) }
+            verify { pdfGenereringskø.genererePdf(mutableSetOf(barn1Dto, barn2Dto), hovedpartDto, motpartDto, any()) }
         }
     }
 
@@ -99,7 +104,7 @@ class ArkiveringTjenesteTest {
         forespørsel.journalført = LocalDateTime.now()
         forespørsel.idJournalpost = "13123"
 
-        every { databasetjeneste.henteAktivForespørsel(any()) } returns forespørsel
+        every { databasetjeneste.finneAktivForespørsel(any()) } returns Optional.of(forespørsel)
 
         arkiveringstjeneste.arkivereForespørsel(forespørsel.id)
 
@@ -115,7 +120,7 @@ class ArkiveringTjenesteTest {
         forespørsel.id = 5151515
         forespørsel.deaktivert = LocalDateTime.now()
 
-        every { databasetjeneste.henteAktivForespørsel(any()) } returns forespørsel
+        every { databasetjeneste.finneAktivForespørsel(any()) } returns Optional.of(forespørsel)
 
         arkiveringstjeneste.arkivereForespørsel(forespørsel.id)
 
@@ -132,7 +137,7 @@ class ArkiveringTjenesteTest {
         forespørsel.isKreverSamtykke = true
         forespørsel.samtykket = null
 
-        every { databasetjeneste.henteAktivForespørsel(any()) } returns forespørsel
+        every { databasetjeneste.finneAktivForespørsel(any()) } returns Optional.of(forespørsel)
 
         arkiveringstjeneste.arkivereForespørsel(forespørsel.id)
 
@@ -150,16 +155,15 @@ class ArkiveringTjenesteTest {
         forespørsel.isKreverSamtykke = false
         forespørsel.samtykket = null
 
-        every { databasetjeneste.henteAktivForespørsel(any()) } returns forespørsel
+        every { databasetjeneste.finneAktivForespørsel(any()) } returns Optional.of(forespørsel)
         every { bidragDokument.opprettJournalpost(any(), any(), any()) } returns OpprettJournalpostResponse(responsJournalpostId)
 
         arkiveringstjeneste.arkivereForespørsel(forespørsel.id)
 
         assertSoftly {
-            forespørsel.journalført shouldHaveSameDayAs LocalDateTime.now()
-            forespørsel.idJournalpost shouldBe responsJournalpostId
+            verify { databasetjeneste.registrereJournalføring(forespørsel.id, responsJournalpostId) }
             verify { bidragDokument.opprettJournalpost(identHovedpart, match { it.contains(forespørsel.id.toString()) }, produsertDokument) }
-            verify { PdfGenerator.genererePdf(mutableSetOf(barn1Dto, barn2Dto), hovedpartDto, motpartDto, any()) }
+            verify { pdfGenereringskø.genererePdf(mutableSetOf(barn1Dto, barn2Dto), hovedpartDto, motpartDto, any()) }
         }
     }
 
@@ -169,19 +173,26 @@ class ArkiveringTjenesteTest {
         val forespørsel = oppretteForespørsel(identHovedpart, identMotpart, barn)
         forespørsel.id = 5151515
 
-        every { databasetjeneste.henteAktivForespørsel(any()) } returns forespørsel
+        every { databasetjeneste.finneAktivForespørsel(any()) } returns Optional.of(forespørsel)
         every { bidragDokument.opprettJournalpost(any(), any(), any()) } throws Arkiveringsfeil(Feilkode.ARKIVERINGSFEIL, HttpStatus.BAD_REQUEST)
 
         arkiveringstjeneste.arkivereForespørsel(forespørsel.id)
 
         assertSoftly {
-            forespørsel.journalført shouldBe null
-            forespørsel.idJournalpost shouldBe null
+            verify(exactly = 0) { databasetjeneste.registrereJournalføring(any(), any()) }
             verify { bidragDokument.opprettJournalpost(identHovedpart, match { it.contains(forespørsel.id.toString()) }, any()) }
         }
 
     }
 
+    @Test
+    fun skalIkkeLageArkiveringsgrunnlagForForespørselSomIkkeLengerErAktiv() {
+
+        every { databasetjeneste.finneAktivForespørsel(5151515) } returns Optional.empty()
+
+        arkiveringstjeneste.henteArkiveringsgrunnlag(5151515) shouldBe null
+    }
+
     private fun oppretteForespørsel(identHovedpart: String, identMotpart: String, barn: Set<Barn>): Forespørsel {
         return Forespørsel.builder()
             .barn(barn)
@@ -191,4 +202,4 @@ class ArkiveringTjenesteTest {
             .samtykket(LocalDateTime.now().minusDays(5))
             .build()
     }
-}
\ No newline at end of file
+}
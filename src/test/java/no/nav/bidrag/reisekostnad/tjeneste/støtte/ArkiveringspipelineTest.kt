@@ -0,0 +1,106 @@
+package no.nav.bidrag.reisekostnad.tjeneste.støtte
+
+import io.kotest.matchers.shouldBe
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry
+import io.mockk.clearAllMocks
+import io.mockk.every
+import io.mockk.impl.annotations.MockK
+import io.mockk.junit5.MockKExtension
+import io.mockk.just
+import io.mockk.mockk
+import io.mockk.runs
+import io.mockk.verify
+import no.nav.bidrag.reisekostnad.api.dto.ut.PersonDto
+import no.nav.bidrag.reisekostnad.feilhåndtering.Arkiveringsfeil
+import no.nav.bidrag.reisekostnad.feilhåndtering.Feilkode
+import no.nav.bidrag.reisekostnad.konfigurasjon.Egenskaper
+import no.nav.bidrag.reisekostnad.tjeneste.Arkivdokumentgrunnlag
+import no.nav.bidrag.reisekostnad.tjeneste.Arkiveringsgrunnlag
+import no.nav.bidrag.reisekostnad.tjeneste.Arkiveringspipeline
+import no.nav.bidrag.reisekostnad.tjeneste.Arkiveringstjeneste
+import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste
+import org.junit.jupiter.api.BeforeEach
+import org.junit.jupiter.api.Test
+import org.junit.jupiter.api.extension.ExtendWith
+import org.springframework.http.HttpStatus
+import java.time.LocalDate
+import java.util.Optional
+
+@ExtendWith(MockKExtension::class)
+class ArkiveringspipelineTest {
+
+    @MockK
+    lateinit var arkiveringstjeneste: Arkiveringstjeneste
+
+    @MockK
+    lateinit var databasetjeneste: Databasetjeneste
+
+    lateinit var arkiveringspipeline: Arkiveringspipeline
+
+    private val person = PersonDto("123", null, null, LocalDate.now())
+    private val pdfDokument = "Produsert dokument".toByteArray()
+
+    @BeforeEach
+    fun initialisere() {
+        clearAllMocks()
+        arkiveringspipeline = Arkiveringspipeline(arkiveringstjeneste, databasetjeneste, SimpleMeterRegistry(), Egenskaper())
+
+        every { arkiveringstjeneste.henteArkiveringsgrunnlag(any()) } answers { grunnlag(firstArg()) }
+        every { arkiveringstjeneste.hentePersoner(any()) } returns Arkivdokumentgrunnlag(setOf(person), person, person, null)
+        every { arkiveringstjeneste.genererePdf(any()) } returns pdfDokument
+        every { arkiveringstjeneste.journalføre(any(), any()) } answers { "journalpost-${firstArg<Arkiveringsgrunnlag>().idForespørsel}" }
+        every { databasetjeneste.registrereJournalføring(any(), any()) } just runs
+        every { databasetjeneste.ferdigstilleArkiveringsbestillinger(any()) } just runs
+    }
+
+    @Test
+    fun skalArkivereAlleForespørsler() {
+        val idForespørsler = (1..200).toSet()
+
+        val antallArkivert = arkiveringspipeline.arkivere(idForespørsler)
+
+        antallArkivert shouldBe 200
+        idForespørsler.forEach { verify(exactly = 1) { databasetjeneste.registrereJournalføring(it, "journalpost-$it") } }
+    }
+
+    @Test
+    fun skalFortsetteMedAndreForespørslerDersomÉnFeiler() {
+        every { arkiveringstjeneste.journalføre(match { it.idForespørsel == 2 }, any()) } throws Arkiveringsfeil(
+            Feilkode.ARKIVERINGSFEIL, HttpStatus.INTERNAL_SERVER_ERROR
+        )
+
+        val antallArkivert = arkiveringspipeline.arkivere(setOf(1, 2, 3))
+
+        antallArkivert shouldBe 2
+        verify(exactly = 1) { databasetjeneste.registrereJournalføring(1, "journalpost-1") }
+        verify(exactly = 0) { databasetjeneste.registrereJournalføring(2, any()) }
+        verify(exactly = 1) { databasetjeneste.registrereJournalføring(3, "journalpost-3") }
+    }
+
+    @Test
+    fun skalIkkeArkivereForespørselSomAlleredeErArkivert() {
+        every { arkiveringstjeneste.henteArkiveringsgrunnlag(1) } returns null
+
+        val antallArkivert = arkiveringspipeline.arkivere(setOf(1))
+
+        antallArkivert shouldBe 0
+        verify(exactly = 0) { arkiveringstjeneste.genererePdf(any()) }
+        verify(exactly = 0) { databasetjeneste.registrereJournalføring(any(), any()) }
+        verify(exactly = 1) { databasetjeneste.ferdigstilleArkiveringsbestillinger(1) }
+    }
+
+    @Test
+    fun skalFerdigstilleBestillingForForespørselSomErDeaktivert() {
+        every { databasetjeneste.finneAktivForespørsel(1) } returns Optional.empty()
+        val pipelineMedArkiveringstjeneste =
+            Arkiveringspipeline(Arkiveringstjeneste(mockk(), mockk(), databasetjeneste, mockk()), databasetjeneste, SimpleMeterRegistry(), Egenskaper())
+
+        val antallArkivert = pipelineMedArkiveringstjeneste.arkivere(setOf(1))
+
+        antallArkivert shouldBe 0
+        verify(exactly = 0) { databasetjeneste.registrereJournalføring(any(), any()) }
+        verify(exactly = 1) { databasetjeneste.ferdigstilleArkiveringsbestillinger(1) }
+    }
+
+    private fun grunnlag(idForespørsel: Int) = Arkiveringsgrunnlag(idForespørsel, "123", "456", setOf("789"), null)
+}
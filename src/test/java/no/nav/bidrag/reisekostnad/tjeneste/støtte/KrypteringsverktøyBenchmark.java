@@ -0,0 +1,65 @@
+package no.nav.bidrag.reisekostnad.tjeneste.støtte;
+
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Måler kryptering av personidenter før og etter at nøkkel og Cipher ble gjenbrukt.
+ * <p>
+ * Kjøres fra IDE eller med {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=no.nav.bidrag.reisekostnad.tjeneste.støtte.KrypteringsverktøyBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class KrypteringsverktøyBenchmark {
+
+  private static final String PERSONIDENT = "12345678910";
+  private static final String KRYPTERT_PERSONIDENT = Krypteringsverktøy.kryptere(PERSONIDENT);
+
+  @Benchmark
+  public String kryptereFørGjenbruk() throws Exception {
+    var factory = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256");
+    var spec = new PBEKeySpec("The owls Are N0T what tHey seeM".toCharArray(), "iwianRpIjoiZDBhN2YyNWEtNGI2ZS00MDQyL".getBytes(), 65536, 256);
+    var nøkkel = new SecretKeySpec(factory.generateSecret(spec).getEncoded(), "AES");
+    var cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+    cipher.init(Cipher.ENCRYPT_MODE, nøkkel, new IvParameterSpec("bW2IK20bbZ_UW-CV".getBytes()));
+    return Base64.getEncoder().encodeToString(cipher.doFinal(PERSONIDENT.getBytes()));
+  }
+
+  @Benchmark
+  public String kryptere() {
+    return Krypteringsverktøy.kryptere(PERSONIDENT);
+  }
+
+  @Benchmark
+  public String dekryptere() {
+    return Krypteringsverktøy.dekryptere(KRYPTERT_PERSONIDENT);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(KrypteringsverktøyBenchmark.class.getSimpleName()).build()).run();
+  }
+}
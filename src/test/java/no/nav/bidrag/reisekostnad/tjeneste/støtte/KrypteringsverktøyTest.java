@@ -6,6 +6,8 @@ import java.security.InvalidAlgorithmParameterException;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
 import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.stream.IntStream;
 import javax.crypto.BadPaddingException;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
@@ -34,4 +36,54 @@ public class KrypteringsverktøyTest {
     // Dekrypterer den krypterte personidenten gir originalen
     Assertions.assertEquals(personident, dekryptertPersonident);
   }
+
+  @Test
+  void skalGiSammeKrypterteStrengSomTidligereVersjonerAvKrypteringsverktøyet() {
+
+    // gitt
+    var personident = "12345678910";
+
+    // hvis
+    var kryptertPersonident = Krypteringsverktøy.kryptere(personident);
+
+    // så
+    // Krypterte identer som allerede er sendt til frontend må fortsatt kunne dekrypteres
+    Assertions.assertEquals("3aXob1CrGdXiK/f7yxTrEA==", kryptertPersonident);
+    Assertions.assertEquals(personident, Krypteringsverktøy.dekryptere("3aXob1CrGdXiK/f7yxTrEA=="));
+  }
+
+  @Test
+  void skalKryptereOgDekryptereRiktigVedSamtidigBruk() {
+
+    // gitt
+    var personidenter = IntStream.range(0, 1000).mapToObj(i -> String.format("%011d", i)).toList();
+
+    // hvis
+    var dekrypterteIdenter = personidenter.parallelStream()
+        .map(Krypteringsverktøy::kryptere)
+        .map(Krypteringsverktøy::dekryptere)
+        .toList();
+
+    // så
+    Assertions.assertEquals(personidenter, dekrypterteIdenter);
+  }
+
+  @Test
+  void skalBevareRekkefølgeOgNullverdierVedKrypteringAvMangeIdenter() {
+
+    // gitt
+    var personidenter = new ArrayList<String>();
+    IntStream.range(0, Krypteringsverktøy.TERSKEL_PARALLELL_BEHANDLING * 2).forEach(i -> personidenter.add(i % 10 == 0 ? null : String.format("%011d", i)));
+
+    // hvis
+    var krypterteIdenter = Krypteringsverktøy.kryptereAlle(personidenter);
+
+    // så
+    Assertions.assertEquals(personidenter.size(), krypterteIdenter.size());
+    for (int i = 0; i < personidenter.size(); i++) {
+      var forventet = personidenter.get(i) == null ? null : Krypteringsverktøy.kryptere(personidenter.get(i));
+      Assertions.assertEquals(forventet, krypterteIdenter.get(i));
+    }
+    Assertions.assertEquals(personidenter, Krypteringsverktøy.dekryptereAlle(krypterteIdenter));
+  }
 }
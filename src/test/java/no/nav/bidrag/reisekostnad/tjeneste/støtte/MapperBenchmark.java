@@ -0,0 +1,96 @@
+package no.nav.bidrag.reisekostnad.tjeneste.støtte;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import no.nav.bidrag.reisekostnad.api.dto.ut.BrukerinformasjonDto;
+import no.nav.bidrag.reisekostnad.database.lesemodell.Forespørselsrad;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.Personlaster;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Familiemedlem;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentFamilieRespons;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentPersoninfoRespons;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.MotpartBarnRelasjon;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Måler mapping av brukerinformasjon med ti forespørsler under samtidige kall. Personinfo leveres fra minnet, slik at det er mappingen og
+ * krypteringen av identer som måles.
+ * <p>
+ * Kjøres fra IDE eller med {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=no.nav.bidrag.reisekostnad.tjeneste.støtte.MapperBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class MapperBenchmark {
+
+  private static final String HOVEDPART = "12345678910";
+
+  private Mapper mapper;
+  private HentFamilieRespons familierespons;
+  private List<Forespørselsrad> forespørselsrader;
+
+  @Setup
+  public void oppsett() {
+    var personinfo = new HashMap<String, HentPersoninfoRespons>();
+    forespørselsrader = IntStream.range(0, 10).mapToObj(i -> {
+      var motpart = String.format("2%010d", i);
+      var barn = String.format("3%010d", i);
+      personinfo.put(motpart, personinfo("Motpart" + i, 40));
+      personinfo.put(barn, personinfo("Barn" + i, 12));
+      return new Forespørselsrad(i, true, LocalDateTime.now(), null, null, null, null, null, HOVEDPART, motpart, barn);
+    }).toList();
+    personinfo.put(HOVEDPART, personinfo("Hovedpart", 38));
+
+    var personlaster = new Personlaster(null, null, null, null, new SimpleMeterRegistry()) {
+      @Override
+      public Map<String, HentPersoninfoRespons> hente(Collection<String> personidenter) {
+        return personinfo;
+      }
+    };
+    mapper = new Mapper(personlaster, null);
+    familierespons = HentFamilieRespons.builder()
+        .person(Familiemedlem.builder().ident(HOVEDPART).fornavn("Hovedpart").foedselsdato(LocalDate.now().minusYears(38)).build())
+        .personensMotpartBarnRelasjon(List.of(MotpartBarnRelasjon.builder()
+            .motpart(Familiemedlem.builder().ident("20000000000").fornavn("Motpart0").foedselsdato(LocalDate.now().minusYears(40)).build())
+            .fellesBarn(List.of(Familiemedlem.builder().ident("30000000000").fornavn("Barn0").foedselsdato(LocalDate.now().minusYears(12)).build()))
+            .build()))
+        .build();
+  }
+
+  @Benchmark
+  public BrukerinformasjonDto tilDto() {
+    return mapper.tilDto(familierespons, forespørselsrader);
+  }
+
+  private static HentPersoninfoRespons personinfo(String fornavn, int alder) {
+    return HentPersoninfoRespons.builder().fornavn(fornavn).kortnavn(fornavn).foedselsdato(LocalDate.now().minusYears(alder)).build();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(MapperBenchmark.class.getSimpleName()).build()).run();
+  }
+}
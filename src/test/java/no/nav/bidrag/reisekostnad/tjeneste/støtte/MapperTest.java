@@ -2,13 +2,18 @@ package no.nav.bidrag.reisekostnad.tjeneste.støtte;
 
 import no.nav.bidrag.reisekostnad.BidragReisekostnadApiTestapplikasjon;
 import no.nav.bidrag.reisekostnad.Testperson;
+import no.nav.bidrag.reisekostnad.aop.Persontilgang;
+import no.nav.bidrag.reisekostnad.api.dto.ut.BrukerinformasjonDto;
+import no.nav.bidrag.reisekostnad.database.dao.ArkiveringsbestillingDao;
 import no.nav.bidrag.reisekostnad.database.dao.BarnDao;
 import no.nav.bidrag.reisekostnad.database.dao.ForelderDao;
 import no.nav.bidrag.reisekostnad.database.dao.ForespørselDao;
 import no.nav.bidrag.reisekostnad.database.datamodell.Barn;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forelder;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel;
+import no.nav.bidrag.reisekostnad.database.lesemodell.Forespørselsrad;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.BidragPersonkonsument;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.Personlaster;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Familiemedlem;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentFamilieRespons;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentPersoninfoRespons;
@@ -19,6 +24,7 @@ import no.nav.security.token.support.spring.test.EnableMockOAuth2Server;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase.Replace;
@@ -29,13 +35,29 @@ import org.springframework.test.context.ActiveProfiles;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.MotpartBarnRelasjon.Relasjon.FAR;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockStatic;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @DisplayName("MapperTest")
@@ -48,12 +70,15 @@ public class MapperTest {
 
     private @Autowired Mapper mapper;
 
+    private @Autowired ArkiveringsbestillingDao arkiveringsbestillingDao;
     private @Autowired BarnDao barnDao;
     private @Autowired ForelderDao forelderDao;
     private @Autowired ForespørselDao forespørselDao;
 
     private @MockBean BidragPersonkonsument bidragPersonkonsument;
 
+    private @MockBean Persontilgang persontilgang;
+
     private @MockBean TokenValidationContextHolder tokenValidationContextHolder;
 
     private static final Testperson HOVEDPART = new Testperson("10001", "Pegasus", 35);
@@ -64,6 +89,7 @@ public class MapperTest {
 
     @BeforeEach
     void sletteTestdata() {
+        arkiveringsbestillingDao.deleteAll();
         barnDao.deleteAll();
         forelderDao.deleteAll();
         forespørselDao.deleteAll();
@@ -283,6 +309,94 @@ public class MapperTest {
     );
   }
 
+  @Test
+  void skalIkkeViseForespørslerSomErJournalførtOgDeaktivert() {
+
+    // gitt
+    var familierespons = oppretteHentFamilieRespons(HOVEDPART, MOTPART);
+    var barn = Set.of(Barn.builder().personident(BARN_OVER_FEMTEN.getIdent()).build());
+    forespørselDao.save(oppretteForespørsel(HOVEDPART.getIdent(), MOTPART.getIdent(), barn));
+    var deaktivert = oppretteForespørsel(HOVEDPART.getIdent(), MOTPART.getIdent(), Set.of(Barn.builder().personident(BARN_UNDER_FEMTEN.getIdent()).build()));
+    deaktivert.setDeaktivert(LocalDateTime.now().minusDays(1));
+    forespørselDao.save(deaktivert);
+
+    bidragPersonkonsumentTestrespons();
+
+    // hvis
+    var brukerinformasjonDto = mapper.tilDto(familierespons);
+
+    // så
+    assertAll(
+            () -> assertThat(brukerinformasjonDto.getForespørslerSomHovedpart()).hasSize(1),
+            () -> assertThat(brukerinformasjonDto.getForespørslerSomHovedpart().iterator().next().getBarn()).hasSize(1),
+            () -> assertThat(brukerinformasjonDto.getForespørslerSomMotpart()).isEmpty()
+    );
+  }
+
+  @Test
+  void skalGiSammeResultatVedSamtidigeKall() throws Exception {
+
+    // gitt
+    var familierespons = oppretteHentFamilieRespons(HOVEDPART, MOTPART);
+    forespørselDao.save(oppretteForespørsel(HOVEDPART.getIdent(), MOTPART.getIdent(),
+            Set.of(Barn.builder().personident(BARN_OVER_FEMTEN.getIdent()).build(), Barn.builder().personident(BARN_UNDER_FEMTEN.getIdent()).build())));
+    forespørselDao.save(oppretteForespørsel(MOTPART.getIdent(), HOVEDPART.getIdent(),
+            Set.of(Barn.builder().personident(BARN_UNDER_FEMTEN.getIdent()).build())));
+
+    bidragPersonkonsumentTestrespons();
+    var fasit = mapper.tilDto(familierespons);
+
+    // hvis
+    List<Future<BrukerinformasjonDto>> resultater;
+    try (var utfører = Executors.newFixedThreadPool(8)) {
+      resultater = utfører.invokeAll(Collections.nCopies(200, () -> mapper.tilDto(familierespons)));
+    }
+
+    // så
+    assertThat(fasit.getForespørslerSomHovedpart()).hasSize(1);
+    assertThat(fasit.getForespørslerSomMotpart()).hasSize(1);
+    for (var resultat : resultater) {
+      assertThat(resultat.get()).usingRecursiveComparison().isEqualTo(fasit);
+    }
+  }
+
+  @Test
+  void skalMappeHverForespørselOgKryptereIdenteneÉnGang() {
+
+    // gitt
+    var familierespons = oppretteHentFamilieRespons(HOVEDPART, MOTPART);
+    var forespørselsrader = List.of(
+            forespørselsrad(1, HOVEDPART, MOTPART, BARN_OVER_FEMTEN),
+            forespørselsrad(1, HOVEDPART, MOTPART, BARN_UNDER_FEMTEN),
+            forespørselsrad(2, MOTPART, HOVEDPART, BARN_UNDER_FEMTEN));
+
+    Map<String, HentPersoninfoRespons> personinfo = spy(new HashMap<>(Map.of(
+            HOVEDPART.getIdent(), personinfo(HOVEDPART), MOTPART.getIdent(), personinfo(MOTPART),
+            BARN_OVER_FEMTEN.getIdent(), personinfo(BARN_OVER_FEMTEN), BARN_UNDER_FEMTEN.getIdent(), personinfo(BARN_UNDER_FEMTEN))));
+    var personlaster = mock(Personlaster.class);
+    when(personlaster.hente(anyCollection())).thenReturn(personinfo);
+    var identerSomKrypteres = ArgumentCaptor.forClass(Collection.class);
+
+    try (var krypteringsverktøy = mockStatic(Krypteringsverktøy.class, CALLS_REAL_METHODS)) {
+
+      // hvis
+      var brukerinformasjonDto = new Mapper(personlaster, forespørselDao).tilDto(familierespons, forespørselsrader);
+
+      // så
+      krypteringsverktøy.verify(() -> Krypteringsverktøy.kryptereAlle(identerSomKrypteres.capture()), times(1));
+      krypteringsverktøy.verify(() -> Krypteringsverktøy.kryptere(anyString()), never());
+      assertAll(
+              () -> assertThat(brukerinformasjonDto.getForespørslerSomHovedpart()).hasSize(1),
+              () -> assertThat(brukerinformasjonDto.getForespørslerSomMotpart()).hasSize(1),
+              () -> verify(personlaster, times(1)).hente(anyCollection()),
+              // Hovedpart, motpart og barn slås opp én gang per forespørsel: 2 + 2 i den første og 2 + 1 i den andre
+              () -> verify(personinfo, times(7)).get(any()),
+              () -> assertThat(identerSomKrypteres.getValue()).containsExactlyInAnyOrder(HOVEDPART.getIdent(), MOTPART.getIdent(),
+                      BARN_OVER_FEMTEN.getIdent(), BARN_UNDER_FEMTEN.getIdent())
+      );
+    }
+  }
+
     private void bidragPersonkonsumentTestrespons() {
         when(bidragPersonkonsument.hentPersoninfo(HOVEDPART.getIdent())).thenReturn(HentPersoninfoRespons.builder()
                 .fornavn(HOVEDPART.getFornavn())
@@ -305,6 +419,15 @@ public class MapperTest {
                 .foedselsdato(BARN_OVER_ATTEN.getFødselsdato()).build());
     }
 
+    private static Forespørselsrad forespørselsrad(int id, Testperson hovedpart, Testperson motpart, Testperson barn) {
+        return new Forespørselsrad(id, false, LocalDateTime.now().minusDays(5), null, null, null, null, null, hovedpart.getIdent(), motpart.getIdent(),
+                barn.getIdent());
+    }
+
+    private static HentPersoninfoRespons personinfo(Testperson testperson) {
+        return HentPersoninfoRespons.builder().fornavn(testperson.getFornavn()).foedselsdato(testperson.getFødselsdato()).build();
+    }
+
     private HentFamilieRespons oppretteHentFamilieRespons(Testperson hovedpart, List<MotpartBarnRelasjon> motpartBarnReasjoner) {
       return HentFamilieRespons.builder()
               .person(Familiemedlem.builder()
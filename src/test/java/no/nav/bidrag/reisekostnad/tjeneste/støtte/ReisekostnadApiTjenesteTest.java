@@ -7,9 +7,12 @@ import static no.nav.bidrag.reisekostnad.Testperson.testpersonSirup;
 import static no.nav.bidrag.reisekostnad.Testperson.testpersonStreng;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -18,23 +21,30 @@ import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import no.nav.bidrag.reisekostnad.Testperson;
+import no.nav.bidrag.reisekostnad.api.dto.ut.BrukerinformasjonDto;
 import no.nav.bidrag.reisekostnad.database.datamodell.Barn;
 import no.nav.bidrag.reisekostnad.database.datamodell.Deaktivator;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forelder;
 import no.nav.bidrag.reisekostnad.database.datamodell.Forespørsel;
 import no.nav.bidrag.reisekostnad.database.datamodell.Oppgavebestilling;
+import no.nav.bidrag.reisekostnad.database.lesemodell.Forespørselsrad;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.BidragPersonkonsument;
+import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.Personlaster;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.Familiemedlem;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentFamilieRespons;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.HentPersoninfoRespons;
 import no.nav.bidrag.reisekostnad.integrasjon.bidrag.person.api.MotpartBarnRelasjon;
 import no.nav.bidrag.reisekostnad.integrasjon.brukernotifikasjon.Brukernotifikasjonkonsument;
-import no.nav.bidrag.reisekostnad.tjeneste.Arkiveringstjeneste;
 import no.nav.bidrag.reisekostnad.tjeneste.Databasetjeneste;
 import no.nav.bidrag.reisekostnad.tjeneste.ReisekostnadApiTjeneste;
 import org.junit.jupiter.api.MethodOrderer;
@@ -53,9 +63,9 @@ public class ReisekostnadApiTjenesteTest {
   private @Mock BidragPersonkonsument bidragPersonkonsument;
   private @Mock Brukernotifikasjonkonsument brukernotifikasjonkonsument;
   private @Spy MeterRegistry meterRegistry = new SimpleMeterRegistry();
-  private @Mock Arkiveringstjeneste arkiveringstjeneste;
   private @Mock Databasetjeneste databasetjeneste;
   private @Mock Mapper mapper;
+  private @Mock Personlaster personlaster;
   private @InjectMocks ReisekostnadApiTjeneste reisekostnadApiTjeneste;
 
   @Test
@@ -76,9 +86,8 @@ public class ReisekostnadApiTjenesteTest {
         .barn(Set.of(Barn.builder().personident(barnKullA.getIdent()).build()))
         .build();
 
-    mockHentPersoninfo(Set.of(barnKullA));
     when(bidragPersonkonsument.hentFamilie(hovedpart.getIdent())).thenReturn(Optional.of(familierespons));
-    when(databasetjeneste.lagreNyForespørsel(hovedpart.getIdent(), motpart.getIdent(), Set.of(barnKullA.getIdent()), true)).thenReturn(lagretForespørsel);
+    when(databasetjeneste.lagreNyForespørsel(eq(hovedpart.getIdent()), eq(motpart.getIdent()), eq(Set.of(barnKullA.getIdent())), eq(true), any(Familiekontekst.class))).thenReturn(lagretForespørsel);
     doNothing().when(brukernotifikasjonkonsument).oppretteOppgaveTilMotpartOmSamtykke(anyInt(), anyString());
 
     // hvis
@@ -87,6 +96,37 @@ public class ReisekostnadApiTjenesteTest {
     // så
     verify(brukernotifikasjonkonsument, times(1)).oppretteOppgaveTilMotpartOmSamtykke(1, motpart.getIdent());
     verify(brukernotifikasjonkonsument, times(1)).varsleOmNyForespørselSomVenterPåSamtykke(hovedpart.getIdent());
+    verify(bidragPersonkonsument, never()).hentPersoninfo(anyString());
+    assertThat(respons.is2xxSuccessful());
+  }
+
+  @Test
+  void skalHenteFødselsdatoFraPersoninfoForBarnSomManglerFødselsdatoIFamilieresponsen() {
+
+    // gitt
+    var hovedpart = testpersonGråtass;
+    var motpart = testpersonStreng;
+    var barn = testpersonBarn16;
+
+    var valgteKrypterteBarn = Set.of(Krypteringsverktøy.kryptere(barn.getIdent()));
+    var familierespons = oppretteHentFamilieResponsUtenFødselsdatoForBarn(hovedpart, motpart, barn);
+    var lagretForespørsel = Forespørsel.builder().id(1)
+        .hovedpart(Forelder.builder().personident(hovedpart.getIdent()).build())
+        .motpart(Forelder.builder().personident(motpart.getIdent()).build())
+        .barn(Set.of(Barn.builder().personident(barn.getIdent()).build()))
+        .build();
+
+    when(bidragPersonkonsument.hentFamilie(hovedpart.getIdent())).thenReturn(Optional.of(familierespons));
+    when(personlaster.hente(Set.of(barn.getIdent())))
+        .thenReturn(Map.of(barn.getIdent(), HentPersoninfoRespons.builder().foedselsdato(barn.getFødselsdato()).build()));
+    when(databasetjeneste.lagreNyForespørsel(eq(hovedpart.getIdent()), eq(motpart.getIdent()), eq(Set.of(barn.getIdent())), eq(false), any(Familiekontekst.class))).thenReturn(lagretForespørsel);
+
+    // hvis
+    var respons = reisekostnadApiTjeneste.oppretteForespørselOmFordelingAvReisekostnader(hovedpart.getIdent(), valgteKrypterteBarn);
+
+    // så
+    verify(databasetjeneste, times(1)).lagreNyForespørsel(eq(hovedpart.getIdent()), eq(motpart.getIdent()), eq(Set.of(barn.getIdent())), eq(false), any(Familiekontekst.class));
+    verify(brukernotifikasjonkonsument, never()).oppretteOppgaveTilMotpartOmSamtykke(anyInt(), anyString());
     assertThat(respons.is2xxSuccessful());
   }
 
@@ -113,9 +153,8 @@ public class ReisekostnadApiTjenesteTest {
             .barn(Set.of(Barn.builder().personident(barnKullA.getIdent()).build()))
             .build();
 
-      mockHentPersoninfo(Set.of(barnKullA));
       when(bidragPersonkonsument.hentFamilie(hovedpart.getIdent())).thenReturn(Optional.of(familierespons));
-      when(databasetjeneste.lagreNyForespørsel(hovedpart.getIdent(), motpart.getIdent(), Set.of(barnKullA.getIdent()), true)).thenReturn(lagretForespørsel);
+      when(databasetjeneste.lagreNyForespørsel(eq(hovedpart.getIdent()), eq(motpart.getIdent()), eq(Set.of(barnKullA.getIdent())), eq(true), any(Familiekontekst.class))).thenReturn(lagretForespørsel);
       doNothing().when(brukernotifikasjonkonsument).oppretteOppgaveTilMotpartOmSamtykke(anyInt(), anyString());
 
       // hvis
@@ -191,9 +230,8 @@ public class ReisekostnadApiTjenesteTest {
         .barn(Set.of(Barn.builder().personident(barn.getIdent()).build()))
         .build();
 
-    mockHentPersoninfo(Set.of(barn));
     when(bidragPersonkonsument.hentFamilie(hovedpart.getIdent())).thenReturn(Optional.of(familierespons));
-    when(databasetjeneste.lagreNyForespørsel(hovedpart.getIdent(), motpart.getIdent(), Set.of(barn.getIdent()), true)).thenReturn(lagretForespørsel);
+    when(databasetjeneste.lagreNyForespørsel(eq(hovedpart.getIdent()), eq(motpart.getIdent()), eq(Set.of(barn.getIdent())), eq(true), any(Familiekontekst.class))).thenReturn(lagretForespørsel);
     doNothing().when(brukernotifikasjonkonsument).oppretteOppgaveTilMotpartOmSamtykke(anyInt(), anyString());
 
     // hvis
@@ -272,9 +310,8 @@ public class ReisekostnadApiTjenesteTest {
         .barn(Set.of(Barn.builder().personident(barn.getIdent()).build()))
         .build();
 
-    mockHentPersoninfo(Set.of(barn));
     when(bidragPersonkonsument.hentFamilie(hovedpart.getIdent())).thenReturn(Optional.of(familierespons));
-    when(databasetjeneste.lagreNyForespørsel(hovedpart.getIdent(), motpart.getIdent(), Set.of(barn.getIdent()), false)).thenReturn(lagretForespørsel);
+    when(databasetjeneste.lagreNyForespørsel(eq(hovedpart.getIdent()), eq(motpart.getIdent()), eq(Set.of(barn.getIdent())), eq(false), any(Familiekontekst.class))).thenReturn(lagretForespørsel);
 
     // hvis
     var respons = reisekostnadApiTjeneste.oppretteForespørselOmFordelingAvReisekostnader(hovedpart.getIdent(), valgteKrypterteBarn);
@@ -285,23 +322,53 @@ public class ReisekostnadApiTjenesteTest {
         () -> verify(brukernotifikasjonkonsument, times(0)).oppretteOppgaveTilMotpartOmSamtykke(idForespørsel, motpart.getIdent()));
   }
 
+  @Test
+  void skalHenteFamilieOgForespørslerParallelt() {
+
+    // gitt
+    var hovedpart = testpersonGråtass;
+    var familierespons = oppretteHentFamilieRespons(hovedpart, testpersonStreng, Set.of(testpersonBarn10));
+    var forespørsler = List.of(new Forespørselsrad(1, true, LocalDateTime.now(), null, null, null, null, null, hovedpart.getIdent(),
+        testpersonStreng.getIdent(), testpersonBarn10.getIdent()));
+    var databaseoppslagStartet = new CountDownLatch(1);
+    var familienVentetPåDatabaseoppslaget = new AtomicBoolean();
+
+    when(bidragPersonkonsument.hentFamilie(hovedpart.getIdent())).thenAnswer(kall -> {
+      familienVentetPåDatabaseoppslaget.set(databaseoppslagStartet.await(5, TimeUnit.SECONDS));
+      return Optional.of(familierespons);
+    });
+    when(mapper.henteSynligeForespørsler(hovedpart.getIdent())).thenAnswer(kall -> {
+      databaseoppslagStartet.countDown();
+      return forespørsler;
+    });
+    when(mapper.tilDto(familierespons, forespørsler))
+        .thenReturn(BrukerinformasjonDto.builder().fornavn(hovedpart.getFornavn()).build());
+
+    // hvis
+    var respons = reisekostnadApiTjeneste.henteBrukerinformasjon(hovedpart.getIdent());
+
+    // så
+    assertAll(
+        () -> assertThat(respons.is2xxSuccessful()).isTrue(),
+        () -> assertThat(familienVentetPåDatabaseoppslaget.get()).isTrue(),
+        () -> verify(mapper, never()).tilDto(any(HentFamilieRespons.class))
+    );
+  }
+
   private HentFamilieRespons oppretteHentFamilieRespons(Testperson hovedpart, Map<Testperson, Set<Testperson>> motpartBarnrelasjoner) {
 
     return HentFamilieRespons.builder().person(tilFamiliemedlem(hovedpart)).personensMotpartBarnRelasjon(
         motpartBarnrelasjoner.entrySet().stream().map(b -> tilMotpartBarnRelasjon(b.getKey(), b.getValue())).collect(Collectors.toList())).build();
   }
 
-  private HentFamilieRespons oppretteHentFamilieRespons(Testperson hovedpart, Testperson motpart, Set<Testperson> fellesBarn) {
-    return oppretteHentFamilieRespons(hovedpart, Map.of(motpart, fellesBarn));
+  private HentFamilieRespons oppretteHentFamilieResponsUtenFødselsdatoForBarn(Testperson hovedpart, Testperson motpart, Testperson barn) {
+    var barnUtenFødselsdato = Familiemedlem.builder().ident(barn.getIdent()).fornavn(barn.getFornavn()).build();
+    return HentFamilieRespons.builder().person(tilFamiliemedlem(hovedpart)).personensMotpartBarnRelasjon(new ArrayList<>(List.of(
+        MotpartBarnRelasjon.builder().motpart(tilFamiliemedlem(motpart)).fellesBarn(List.of(barnUtenFødselsdato)).build()))).build();
   }
 
-  private void mockHentPersoninfo(Set<Testperson> testpersoner) {
-
-    for (Testperson testperson : testpersoner) {
-      var respons = HentPersoninfoRespons.builder().foedselsdato(testperson.getFødselsdato()).fornavn(testperson.getFornavn()).build();
-
-      when(bidragPersonkonsument.hentPersoninfo(testperson.getIdent())).thenReturn(respons);
-    }
+  private HentFamilieRespons oppretteHentFamilieRespons(Testperson hovedpart, Testperson motpart, Set<Testperson> fellesBarn) {
+    return oppretteHentFamilieRespons(hovedpart, Map.of(motpart, fellesBarn));
   }
 
   private MotpartBarnRelasjon tilMotpartBarnRelasjon(Testperson motpart, Set<Testperson> fellesBarn) {